@@ -0,0 +1,30 @@
+package com.lda.streambox.bench;
+
+import com.lda.streambox.entity.StreamBoxBasePayloadEntity;
+import com.lda.streambox.entity.StreamBoxBaseStatusEnum;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public final class BenchEntities {
+
+    private BenchEntities() {
+    }
+
+    public static class OutboxRow extends StreamBoxBasePayloadEntity {
+    }
+
+    public static class InboxRow extends StreamBoxBasePayloadEntity {
+    }
+
+    public static OutboxRow outboxRow(String type, String payload, String partitionKey) {
+        final OutboxRow row = new OutboxRow();
+        row.setId(UUID.randomUUID());
+        row.setStatus(StreamBoxBaseStatusEnum.PENDING);
+        row.setCreatedAt(Instant.now());
+        row.setType(type);
+        row.setPayload(payload);
+        row.setPartitionKey(partitionKey);
+        return row;
+    }
+}
@@ -0,0 +1,54 @@
+package com.lda.streambox.bench;
+
+import com.lda.streambox.anotation.StreamBoxEventType;
+import com.lda.streambox.model.StreamBoxEvent;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Typical event shapes: a small flat one and a larger one with a nested list.
+ */
+public final class BenchEvents {
+
+    private BenchEvents() {
+    }
+
+    @StreamBoxEventType("OrderCreated")
+    public record OrderCreated(UUID orderId, String customerId, BigDecimal amount, Instant at)
+            implements StreamBoxEvent {
+
+        @Override
+        public String partitionKey() {
+            return customerId;
+        }
+    }
+
+    @StreamBoxEventType("OrderShipped")
+    public record OrderShipped(UUID orderId, String customerId, String carrier, List<Line> lines, Instant at)
+            implements StreamBoxEvent {
+
+        @Override
+        public String partitionKey() {
+            return customerId;
+        }
+    }
+
+    public record Line(String sku, int quantity, BigDecimal price) {
+    }
+
+    public static OrderCreated orderCreated(int i) {
+        return new OrderCreated(UUID.randomUUID(), "customer-" + (i % 64), BigDecimal.valueOf(1999, 2), Instant.now());
+    }
+
+    public static OrderShipped orderShipped(int i, int lines) {
+        final List<Line> items = new ArrayList<>(lines);
+        for (int l = 0; l < lines; l++) {
+            items.add(new Line("SKU-" + l, l + 1, BigDecimal.valueOf(100 + l, 2)));
+        }
+        return new OrderShipped(UUID.randomUUID(), "customer-" + (i % 64), "carrier", items, Instant.now());
+    }
+}
@@ -0,0 +1,34 @@
+package com.lda.streambox.bench;
+
+import com.lda.streambox.anotation.StreamBoxType;
+import com.lda.streambox.factory.InboxFactoryAbstract;
+import com.lda.streambox.json.JsonConverter;
+import com.lda.streambox.model.StreamBoxEvent;
+import com.lda.streambox.register.StreamBoxEventRegistry;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+
+/**
+ * Builds the library objects the way the auto-configuration does, without a Spring context.
+ */
+public final class BenchFixtures {
+
+    private BenchFixtures() {
+    }
+
+    public static JsonConverter jsonConverter(StreamBoxEventRegistry registry) {
+        final JsonConverter jsonConverter = new JsonConverter(JsonMapper.builder().build());
+        registry.eventClasses().forEach(jsonConverter::register);
+        return jsonConverter;
+    }
+
+    public static StreamBoxEventRegistry registry() {
+        return new StreamBoxEventRegistry(List.of(BenchEvents.class.getPackageName()), StreamBoxType.INBOX);
+    }
+
+    public static InboxFactoryAbstract<BenchEntities.InboxRow, StreamBoxEvent> inboxFactory(StreamBoxEventRegistry registry) {
+        return new InboxFactoryAbstract<>(registry, BenchEntities.InboxRow.class) {
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package com.lda.streambox.bench;
+
+import com.lda.streambox.model.StreamBoxEvent;
+import com.lda.streambox.register.StreamBoxEventRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link StreamBoxEventRegistry#resolve} on a hit and a miss, plus the registry start-up cost.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventRegistryBenchmark {
+
+    private StreamBoxEventRegistry registry;
+    // Not constants, so the lookups are not folded away.
+    private String known = "OrderShipped";
+    private String unknown = "OrderCancelled";
+
+    @Setup
+    public void setup() {
+        registry = BenchFixtures.registry();
+    }
+
+    @Benchmark
+    public Class<? extends StreamBoxEvent> resolveKnown() {
+        return registry.resolve(known);
+    }
+
+    @Benchmark
+    public Class<? extends StreamBoxEvent> resolveUnknown() {
+        return registry.resolve(unknown);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public StreamBoxEventRegistry startUp() {
+        return BenchFixtures.registry();
+    }
+}
@@ -0,0 +1,79 @@
+package com.lda.streambox.bench;
+
+import com.lda.streambox.entity.StreamBoxBaseStatusEnum;
+import com.lda.streambox.port.StreamBoxInput;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * {@link StreamBoxInput} stand-in that always returns the same pre-built rows, so only the
+ * scheduler's own work is measured.
+ */
+public class InMemoryStreamBoxInput implements StreamBoxInput<BenchEntities.OutboxRow> {
+
+    private final List<BenchEntities.OutboxRow> rows;
+    private final Blackhole blackhole;
+
+    public InMemoryStreamBoxInput(int size, int partitionKeys, Blackhole blackhole) {
+        this.rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            rows.add(BenchEntities.outboxRow("OrderCreated", "{}", partitionKeys > 0 ? "key-" + (i % partitionKeys) : null));
+        }
+        this.blackhole = blackhole;
+    }
+
+    @Override
+    public List<BenchEntities.OutboxRow> lockNextBatch(int limit) {
+        return limit >= rows.size() ? rows : rows.subList(0, limit);
+    }
+
+    @Override
+    public void finish(BenchEntities.OutboxRow streamBoxEntity) {
+        blackhole.consume(streamBoxEntity);
+    }
+
+    @Override
+    public void finishAll(Collection<UUID> ids) {
+        blackhole.consume(ids);
+    }
+
+    @Override
+    public void doHandle(BenchEntities.OutboxRow streamBoxEntity) {
+        blackhole.consume(streamBoxEntity);
+    }
+
+    @Override
+    public void retryLater(BenchEntities.OutboxRow streamBoxEntity, int attempts, Instant nextAttemptAt) {
+        blackhole.consume(streamBoxEntity);
+    }
+
+    @Override
+    public void markDead(Collection<UUID> ids) {
+        blackhole.consume(ids);
+    }
+
+    @Override
+    public int purgeExpired(StreamBoxBaseStatusEnum status, Instant olderThan, int chunkSize) {
+        return 0;
+    }
+
+    @Override
+    public long countPending() {
+        return rows.size();
+    }
+
+    @Override
+    public Instant oldestPendingCreatedAt() {
+        return null;
+    }
+
+    @Override
+    public String orderingKey(BenchEntities.OutboxRow streamBoxEntity) {
+        return streamBoxEntity.getPartitionKey();
+    }
+}
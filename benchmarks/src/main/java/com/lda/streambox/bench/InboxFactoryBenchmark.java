@@ -0,0 +1,69 @@
+package com.lda.streambox.bench;
+
+import com.lda.streambox.factory.InboxFactoryAbstract;
+import com.lda.streambox.json.JsonConverter;
+import com.lda.streambox.model.StreamBoxEvent;
+import com.lda.streambox.register.StreamBoxEventRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inbox side: envelope to row ({@code createEntity}) and row to event ({@code createEvent}).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InboxFactoryBenchmark {
+
+    @Param({"1", "20", "200"})
+    public int lines;
+
+    private JsonConverter jsonConverter;
+    private InboxFactoryAbstract<BenchEntities.InboxRow, StreamBoxEvent> factory;
+    private String envelope;
+    private byte[] envelopeBytes;
+    private BenchEntities.InboxRow row;
+
+    @Setup
+    public void setup() {
+        final StreamBoxEventRegistry registry = BenchFixtures.registry();
+        jsonConverter = BenchFixtures.jsonConverter(registry);
+        factory = BenchFixtures.inboxFactory(registry);
+
+        final var event = BenchEvents.orderShipped(1, lines);
+        envelope = jsonConverter.toEnvelope(
+                BenchEntities.outboxRow("OrderShipped", jsonConverter.toJson(event), event.partitionKey()));
+        envelopeBytes = envelope.getBytes(StandardCharsets.UTF_8);
+        row = factory.createEntity(envelope, jsonConverter);
+    }
+
+    @Benchmark
+    public BenchEntities.InboxRow createEntity() {
+        return factory.createEntity(envelope, jsonConverter);
+    }
+
+    @Benchmark
+    public BenchEntities.InboxRow createEntityFromBytes() {
+        return factory.createEntity(jsonConverter.fromEnvelope(envelopeBytes));
+    }
+
+    @Benchmark
+    public StreamBoxEvent createEvent() {
+        return factory.createEvent(row, jsonConverter);
+    }
+}
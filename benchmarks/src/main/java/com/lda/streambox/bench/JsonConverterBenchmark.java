@@ -0,0 +1,69 @@
+package com.lda.streambox.bench;
+
+import com.lda.streambox.json.JsonConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JsonConverter} round trips of a small and a larger event.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonConverterBenchmark {
+
+    private JsonConverter jsonConverter;
+    private BenchEvents.OrderCreated small;
+    private BenchEvents.OrderShipped large;
+    private String smallJson;
+    private String largeJson;
+    private byte[] largeBytes;
+
+    @Setup
+    public void setup() {
+        jsonConverter = BenchFixtures.jsonConverter(BenchFixtures.registry());
+        small = BenchEvents.orderCreated(1);
+        large = BenchEvents.orderShipped(1, 20);
+        smallJson = jsonConverter.toJson(small);
+        largeJson = jsonConverter.toJson(large);
+        largeBytes = jsonConverter.toJsonBytes(large);
+    }
+
+    @Benchmark
+    public String smallToJson() {
+        return jsonConverter.toJson(small);
+    }
+
+    @Benchmark
+    public BenchEvents.OrderCreated smallFromJson() {
+        return jsonConverter.fromJson(smallJson, BenchEvents.OrderCreated.class);
+    }
+
+    @Benchmark
+    public String largeToJson() {
+        return jsonConverter.toJson(large);
+    }
+
+    @Benchmark
+    public BenchEvents.OrderShipped largeFromJson() {
+        return jsonConverter.fromJson(largeJson, BenchEvents.OrderShipped.class);
+    }
+
+    @Benchmark
+    public BenchEvents.OrderShipped largeFromBytes() {
+        return jsonConverter.fromJson(largeBytes, BenchEvents.OrderShipped.class);
+    }
+}
@@ -0,0 +1,71 @@
+package com.lda.streambox.bench;
+
+import com.lda.streambox.OutboxAdapter;
+import com.lda.streambox.json.JsonConverter;
+import com.lda.streambox.model.StreamBoxEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OutboxAdapter#handleEvent}: envelope serialization of a stored row, the broker is a blackhole.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OutboxEnvelopeBenchmark {
+
+    @Param({"1", "20", "200"})
+    public int lines;
+
+    private BlackholeOutbox outbox;
+    private BenchEntities.OutboxRow row;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        final JsonConverter jsonConverter = BenchFixtures.jsonConverter(BenchFixtures.registry());
+        outbox = new BlackholeOutbox(jsonConverter, blackhole);
+        final var event = BenchEvents.orderShipped(1, lines);
+        row = BenchEntities.outboxRow("OrderShipped", jsonConverter.toJson(event), event.partitionKey());
+    }
+
+    @Benchmark
+    public void handleEvent() {
+        outbox.handleEvent(row);
+    }
+
+    static final class BlackholeOutbox extends OutboxAdapter<BenchEntities.OutboxRow, StreamBoxEvent> {
+
+        private final Blackhole blackhole;
+
+        // handleEvent touches neither the repository nor the factory.
+        BlackholeOutbox(JsonConverter jsonConverter, Blackhole blackhole) {
+            super(jsonConverter, null, null);
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        protected void sendToMessaging(String json) {
+            blackhole.consume(json);
+        }
+
+        @Override
+        public void doHandle(BenchEntities.OutboxRow streamBoxEntity) {
+            handleEvent(streamBoxEntity);
+        }
+    }
+}
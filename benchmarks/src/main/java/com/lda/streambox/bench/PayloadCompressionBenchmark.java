@@ -0,0 +1,57 @@
+package com.lda.streambox.bench;
+
+import com.lda.streambox.json.JsonConverter;
+import com.lda.streambox.json.StreamBoxPayloadCompressor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link StreamBoxPayloadCompressor}: cost of storing a payload compressed, and of reading it back.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PayloadCompressionBenchmark {
+
+    @Param({"20", "200"})
+    public int lines;
+
+    private StreamBoxPayloadCompressor compressor;
+    private String payload;
+    private BenchEntities.OutboxRow compressed;
+
+    @Setup
+    public void setup() {
+        final JsonConverter jsonConverter = BenchFixtures.jsonConverter(BenchFixtures.registry());
+        compressor = new StreamBoxPayloadCompressor(512);
+        payload = jsonConverter.toJson(BenchEvents.orderShipped(1, lines));
+        compressed = BenchEntities.outboxRow("OrderShipped", payload, null);
+        compressor.compress(compressed);
+    }
+
+    @Benchmark
+    public BenchEntities.OutboxRow compress() {
+        final BenchEntities.OutboxRow row = BenchEntities.outboxRow("OrderShipped", payload, null);
+        compressor.compress(row);
+        return row;
+    }
+
+    @Benchmark
+    public String decompress() {
+        return compressor.payloadOf(compressed);
+    }
+}
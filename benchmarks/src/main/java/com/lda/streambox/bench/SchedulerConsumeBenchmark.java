@@ -0,0 +1,50 @@
+package com.lda.streambox.bench;
+
+import com.lda.streambox.scheduler.StreamBoxScheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link StreamBoxScheduler#consume} overhead per batch against {@link InMemoryStreamBoxInput}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SchedulerConsumeBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int limit;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    @Param({"16"})
+    public int partitionKeys;
+
+    private StreamBoxScheduler<BenchEntities.OutboxRow> scheduler;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        scheduler = new StreamBoxScheduler<>(new InMemoryStreamBoxInput(limit, partitionKeys, blackhole), parallelism);
+    }
+
+    @Benchmark
+    public int consume() {
+        return scheduler.consume(limit);
+    }
+}
@@ -0,0 +1,113 @@
+package com.lda.streambox.bench.load;
+
+import com.lda.streambox.InboxAdapter;
+import com.lda.streambox.OutboxAdapter;
+import com.lda.streambox.anotation.StreamBox;
+import com.lda.streambox.anotation.StreamBoxType;
+import com.lda.streambox.factory.InboxFactoryAbstract;
+import com.lda.streambox.factory.OutboxFactoryInterface;
+import com.lda.streambox.json.JsonConverter;
+import com.lda.streambox.model.StreamBoxEnvelope;
+import com.lda.streambox.model.StreamBoxWrapper;
+import com.lda.streambox.port.StreamBoxBatchInput;
+import com.lda.streambox.register.StreamBoxEventRegistry;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * One harness node: an outbox publishing to the {@link LoadBroker} and an inbox projecting
+ * into the {@link LoadRecorder} (or the outbox projecting directly with local dispatch). Both singletons are registered by {@link LoadHarness}.
+ */
+@SpringBootApplication
+@StreamBox(type = StreamBoxType.INBOX)
+public class LoadApp {
+
+    @Bean
+    public LoadOutbox loadOutbox(
+            JsonConverter jsonConverter,
+            LoadOutboxRepository repository,
+            LoadBroker broker,
+            LoadRecorder recorder) {
+        return new LoadOutbox(jsonConverter, repository, broker, recorder);
+    }
+
+    @Bean
+    public LoadInboxFactory loadInboxFactory(StreamBoxEventRegistry registry) {
+        return new LoadInboxFactory(registry);
+    }
+
+    @Bean
+    public LoadInbox loadInbox(
+            JsonConverter jsonConverter,
+            LoadInboxRepository repository,
+            LoadInboxFactory factory,
+            LoadRecorder recorder) {
+        return new LoadInbox(jsonConverter, repository, factory, recorder);
+    }
+
+    public static class LoadOutbox extends OutboxAdapter<LoadOutboxRow, LoadEvent>
+            implements StreamBoxBatchInput<LoadOutboxRow> {
+
+        private final LoadBroker broker;
+
+        LoadOutbox(JsonConverter jsonConverter, LoadOutboxRepository repository, LoadBroker broker, LoadRecorder recorder) {
+            super(jsonConverter, repository, outboxFactory());
+            this.broker = broker;
+            // Only used when local dispatch is enabled: the inbox projection, in memory.
+            addLocalHandler((outboxId, event) -> recorder.projected(event));
+        }
+
+        @Override
+        protected void sendToMessaging(String json) {
+            broker.send(json);
+        }
+
+        @Override
+        public void doHandle(LoadOutboxRow streamBoxEntity) {
+            handleEvent(streamBoxEntity);
+        }
+
+        private static OutboxFactoryInterface<LoadOutboxRow, StreamBoxWrapper<LoadEvent>> outboxFactory() {
+            return (wrapper, jsonConverter) -> {
+                final LoadOutboxRow row = new LoadOutboxRow();
+                row.setType(wrapper.type());
+                row.setPayload(jsonConverter.toJson(wrapper.payload()));
+                return row;
+            };
+        }
+    }
+
+    public static class LoadInboxFactory extends InboxFactoryAbstract<LoadInboxRow, LoadEvent> {
+
+        LoadInboxFactory(StreamBoxEventRegistry registry) {
+            super(registry, LoadInboxRow.class);
+        }
+
+        @Override
+        public LoadInboxRow createEntity(StreamBoxEnvelope envelope) {
+            final LoadInboxRow row = super.createEntity(envelope);
+            row.setId(null);
+            return row;
+        }
+    }
+
+    public static class LoadInbox extends InboxAdapter<LoadInboxRow, LoadEvent> {
+
+        private final LoadRecorder recorder;
+
+        LoadInbox(JsonConverter jsonConverter, LoadInboxRepository repository, LoadInboxFactory factory, LoadRecorder recorder) {
+            super(jsonConverter, repository, factory);
+            this.recorder = recorder;
+        }
+
+        @Override
+        public void doHandle(LoadInboxRow streamBoxEntity) {
+            handleEvent(streamBoxEntity);
+        }
+
+        @Override
+        protected void handleProjection(LoadEvent event) {
+            recorder.projected(event);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.lda.streambox.bench.load;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory stand-in for the message broker, shared by every node of the harness.
+ */
+public class LoadBroker {
+
+    private final BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+
+    public void send(String message) {
+        queue.add(message);
+    }
+
+    public String poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.poll(timeout, unit);
+    }
+
+    public int depth() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,16 @@
+package com.lda.streambox.bench.load;
+
+import com.lda.streambox.anotation.StreamBoxEventType;
+import com.lda.streambox.model.StreamBoxEvent;
+
+/**
+ * {@code sentNanos} is the intended send time, so a stalled producer still shows up as latency.
+ */
+@StreamBoxEventType("LoadEvent")
+public record LoadEvent(long seq, long sentNanos, String key) implements StreamBoxEvent {
+
+    @Override
+    public String partitionKey() {
+        return key;
+    }
+}
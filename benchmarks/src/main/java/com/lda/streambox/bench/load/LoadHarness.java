@@ -0,0 +1,230 @@
+package com.lda.streambox.bench.load;
+
+import com.lda.streambox.replay.StreamBoxJdbcReplayCheckpointStore;
+import com.lda.streambox.replay.StreamBoxReplayOptions;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load test: {@code addEvent} → outbox scheduler → broker → {@code addFromConsumer}
+ * → inbox scheduler → {@code handleProjection}, on N nodes sharing one in-memory H2 database.
+ * <p>
+ * Arguments are {@code key=value}: {@code rate} (events/s), {@code duration}, {@code warmup},
+ * {@code nodes}, {@code producers} (threads calling {@code addEvent}), {@code consumers} (broker
+ * consumer threads per node), {@code keys} (partition keys, 0 for none), and the shortcuts {@code limit},
+ * {@code fixed-rate}, {@code pool-size}, {@code mode}, {@code parallelism}, {@code partitioned}, {@code partitions},
+ * {@code claim}, {@code claim-lease}, {@code workers}, {@code executor}, {@code local}, {@code fetch}, {@code fetch-size}. Any {@code streambox.*}
+ * or {@code spring.*} key is passed as is to every node.
+ * <p>
+ * {@code replay=<parallelism>} then replays the FINISHED inbox rows of the first node while the
+ * schedulers keep running, and reports the replay rate.
+ */
+public final class LoadHarness {
+
+    private static final String JDBC_URL = "jdbc:h2:mem:streambox-load;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+
+    private static final Map<String, String> SHORTCUTS = Map.ofEntries(
+            Map.entry("limit", "streambox.scheduler.defaults.limit"),
+            Map.entry("fixed-rate", "streambox.scheduler.defaults.fixed-rate"),
+            Map.entry("pool-size", "streambox.scheduler.pool-size"),
+            Map.entry("mode", "streambox.scheduler.defaults.mode"),
+            Map.entry("parallelism", "streambox.scheduler.defaults.parallelism"),
+            Map.entry("partitioned", "streambox.scheduler.defaults.partitioned"),
+            Map.entry("partitions", "streambox.scheduler.defaults.partitions"),
+            Map.entry("claim", "streambox.scheduler.defaults.claim"),
+            Map.entry("claim-lease", "streambox.scheduler.defaults.claim-lease"),
+            Map.entry("workers", "streambox.scheduler.defaults.workers"),
+            Map.entry("executor", "streambox.scheduler.defaults.executor"),
+            Map.entry("local", "streambox.scheduler.defaults.local-dispatch"),
+            Map.entry("fetch", "streambox.scheduler.defaults.fetch"),
+            Map.entry("fetch-size", "streambox.scheduler.defaults.fetch-size"));
+
+    private LoadHarness() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        final Map<String, String> options = parse(args);
+        final int rate = Integer.parseInt(options.getOrDefault("rate", "1000"));
+        final Duration duration = Duration.parse(options.getOrDefault("duration", "PT60S"));
+        final Duration warmup = Duration.parse(options.getOrDefault("warmup", "PT10S"));
+        final int nodeCount = Integer.parseInt(options.getOrDefault("nodes", "1"));
+        final int keys = Integer.parseInt(options.getOrDefault("keys", "64"));
+        final int producers = Integer.parseInt(options.getOrDefault("producers", "4"));
+        final int consumers = Integer.parseInt(options.getOrDefault("consumers", "4"));
+
+        final LoadBroker broker = new LoadBroker();
+        final LoadRecorder recorder = new LoadRecorder();
+        final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+        for (int i = 0; i < nodeCount; i++) {
+            nodes.add(startNode(i, options, broker, recorder));
+        }
+        final List<LoadApp.LoadOutbox> outboxes = nodes.stream().map(n -> n.getBean(LoadApp.LoadOutbox.class)).toList();
+        final LoadApp.LoadInbox inbox = nodes.getFirst().getBean(LoadApp.LoadInbox.class);
+        final LoadApp.LoadOutbox outbox = outboxes.getFirst();
+
+        final List<Thread> threads = new ArrayList<>();
+        for (ConfigurableApplicationContext node : nodes) {
+            for (int i = 0; i < consumers; i++) {
+                threads.add(Thread.ofPlatform().name("load-consumer-" + i).start(() ->
+                        consume(broker, node.getBean(LoadApp.LoadInbox.class))));
+            }
+        }
+        final AtomicLong sequence = new AtomicLong();
+        for (int i = 0; i < producers; i++) {
+            threads.add(Thread.ofPlatform().name("load-producer-" + i).start(() ->
+                    produce(outboxes, recorder, sequence, (double) rate / producers, keys, warmup.plus(duration))));
+        }
+
+        System.out.printf("rate=%d/s nodes=%d keys=%d %s%n", rate, nodeCount, keys, options);
+        System.out.println("   t  produced/s projected/s   p50 ms   p99 ms  outbox  broker   inbox  dup");
+
+        final long warmupSeconds = warmup.toSeconds();
+        final long totalSeconds = warmupSeconds + duration.toSeconds();
+        long lastProjected = 0;
+        long lastProduced = 0;
+        long backlogAtStart = 0;
+        long backlog = 0;
+        for (long t = 1; t <= totalSeconds; t++) {
+            TimeUnit.SECONDS.sleep(1);
+            if (t == warmupSeconds) {
+                recorder.reset();
+            }
+            final long produced = recorder.getProduced();
+            final long projected = recorder.getProjected();
+            final long[] latencies = recorder.drainInterval();
+            final long outboxBacklog = outbox.countPending();
+            final long inboxBacklog = inbox.countPending();
+            backlog = outboxBacklog + broker.depth() + inboxBacklog;
+            if (t == warmupSeconds) {
+                backlogAtStart = backlog;
+            }
+            System.out.printf("%4d%s %10d %11d %8.1f %8.1f %7d %7d %7d %4d%n",
+                    t, t <= warmupSeconds ? "w" : " ",
+                    produced - lastProduced, projected - lastProjected,
+                    LoadRecorder.percentileMillis(latencies, 50), LoadRecorder.percentileMillis(latencies, 99),
+                    outboxBacklog, broker.depth(), inboxBacklog, recorder.getDuplicates());
+            lastProduced = produced;
+            lastProjected = projected;
+        }
+
+        final long[] all = recorder.totalLatencies();
+        final double seconds = duration.toSeconds();
+        System.out.printf(Locale.ROOT,
+                "%nsustained %.0f events/s, p50 %.1f ms, p99 %.1f ms, backlog growth %+.0f events/s, duplicates %d%n",
+                all.length / seconds,
+                LoadRecorder.percentileMillis(all, 50), LoadRecorder.percentileMillis(all, 99),
+                (backlog - backlogAtStart) / seconds, recorder.getDuplicates());
+
+        threads.forEach(Thread::interrupt);
+        if (options.containsKey("replay")) {
+            replay(nodes.getFirst(), Integer.parseInt(options.get("replay")));
+        }
+        nodes.reversed().forEach(ConfigurableApplicationContext::close);
+    }
+
+    private static void replay(ConfigurableApplicationContext node, int parallelism) {
+        final var replayer = node.getBean(LoadApp.LoadInbox.class).replayer("load-inbox",
+                StreamBoxReplayOptions.builder().parallelism(parallelism).restart(true).build(),
+                new StreamBoxJdbcReplayCheckpointStore(node.getBean(JdbcTemplate.class)));
+        final long started = System.nanoTime();
+        final long replayed = replayer.run();
+        final double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf(Locale.ROOT, "replayed %d rows in %.2f s, %.0f rows/s (parallelism %d)%n",
+                replayed, seconds, replayed / seconds, parallelism);
+    }
+
+    private static ConfigurableApplicationContext startNode(int index, Map<String, String> options, LoadBroker broker, LoadRecorder recorder) {
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.url", JDBC_URL);
+        properties.put("spring.datasource.hikari.maximum-pool-size", "20");
+        // The first node creates the schema, the others join it.
+        properties.put("spring.jpa.hibernate.ddl-auto", index == 0 ? "create" : "none");
+        // Lease tables of the partitioned mode.
+        properties.put("spring.sql.init.mode", "always");
+        properties.put("spring.sql.init.schema-locations", "classpath:load-schema.sql");
+        properties.put("streambox.scheduler.node-id", "node-" + index);
+        properties.put("spring.jpa.properties.hibernate.jdbc.batch_size", "100");
+        properties.put("spring.jpa.open-in-view", "false");
+        properties.put("logging.level.root", "WARN");
+        properties.put("streambox.scheduler.enabled", "true");
+        properties.put("streambox.scheduler.defaults.fixed-rate", "PT0.1S");
+        options.forEach((key, value) -> {
+            if (SHORTCUTS.containsKey(key)) {
+                properties.put(SHORTCUTS.get(key), value);
+            } else if (key.startsWith("streambox.") || key.startsWith("spring.")) {
+                properties.put(key, value);
+            }
+        });
+
+        return new SpringApplicationBuilder(LoadApp.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties(properties)
+                .initializers(context -> {
+                    context.getBeanFactory().registerSingleton("loadBroker", broker);
+                    context.getBeanFactory().registerSingleton("loadRecorder", recorder);
+                })
+                .run();
+    }
+
+    private static void produce(
+            List<LoadApp.LoadOutbox> outboxes,
+            LoadRecorder recorder,
+            AtomicLong sequence,
+            double rate,
+            int keys,
+            Duration duration) {
+        final long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        final long end = System.nanoTime() + duration.toNanos();
+        long next = System.nanoTime();
+        while (next < end && !Thread.currentThread().isInterrupted()) {
+            final long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            final long seq = sequence.getAndIncrement();
+            final String key = keys > 0 ? "key-" + (seq % keys) : null;
+            outboxes.get((int) (seq % outboxes.size())).addEvent(new LoadEvent(seq, next, key));
+            recorder.produced();
+            next += interval;
+        }
+    }
+
+    private static void consume(LoadBroker broker, LoadApp.LoadInbox inbox) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                final String message = broker.poll(100, TimeUnit.MILLISECONDS);
+                if (message != null) {
+                    inbox.addFromConsumer(message);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        final Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            final String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            final int eq = option.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got " + arg);
+            }
+            options.put(option.substring(0, eq), option.substring(eq + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,9 @@
+package com.lda.streambox.bench.load;
+
+import com.lda.streambox.entity.StreamBoxBasePayloadEntity;
+import jakarta.persistence.Entity;
+
+// The entity name doubles as the table name in the native StreamBox queries.
+@Entity(name = "load_inbox")
+public class LoadInboxRow extends StreamBoxBasePayloadEntity {
+}
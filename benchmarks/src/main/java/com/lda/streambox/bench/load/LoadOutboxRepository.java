@@ -0,0 +1,10 @@
+package com.lda.streambox.bench.load;
+
+import com.lda.streambox.repository.StreamBoxRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+@Transactional
+public interface LoadOutboxRepository extends StreamBoxRepository<LoadOutboxRow> {
+}
@@ -0,0 +1,80 @@
+package com.lda.streambox.bench.load;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects end-to-end latencies (send to projection) and counts duplicate projections.
+ */
+public class LoadRecorder {
+
+    private final AtomicLong produced = new AtomicLong();
+    private final BitSet seen = new BitSet();
+    private long projected;
+    private long duplicates;
+    private long[] interval = new long[1024];
+    private int intervalSize;
+    private long[] total = new long[1024];
+    private int totalSize;
+
+    public void produced() {
+        produced.incrementAndGet();
+    }
+
+    public long getProduced() {
+        return produced.get();
+    }
+
+    public synchronized void projected(LoadEvent event) {
+        final long latency = System.nanoTime() - event.sentNanos();
+        if (event.seq() <= Integer.MAX_VALUE) {
+            final int seq = (int) event.seq();
+            if (seen.get(seq)) {
+                duplicates++;
+                return;
+            }
+            seen.set(seq);
+        }
+        projected++;
+        if (intervalSize == interval.length) interval = Arrays.copyOf(interval, intervalSize * 2);
+        interval[intervalSize++] = latency;
+        if (totalSize == total.length) total = Arrays.copyOf(total, totalSize * 2);
+        total[totalSize++] = latency;
+    }
+
+    public synchronized long getProjected() {
+        return projected;
+    }
+
+    public synchronized long getDuplicates() {
+        return duplicates;
+    }
+
+    /** Latencies recorded since the previous call, sorted. */
+    public synchronized long[] drainInterval() {
+        final long[] latencies = Arrays.copyOf(interval, intervalSize);
+        intervalSize = 0;
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    /** Every latency recorded after {@link #reset()}, sorted. */
+    public synchronized long[] totalLatencies() {
+        final long[] latencies = Arrays.copyOf(total, totalSize);
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    /** Ends the warm-up: forgets the recorded latencies, counts keep going. */
+    public synchronized void reset() {
+        intervalSize = 0;
+        totalSize = 0;
+    }
+
+    public static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) return Double.NaN;
+        final int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
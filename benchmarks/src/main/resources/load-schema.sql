@@ -0,0 +1,22 @@
+CREATE TABLE IF NOT EXISTS streambox_lease (
+    queue      VARCHAR(200) NOT NULL,
+    bucket     INT          NOT NULL,
+    owner      VARCHAR(200),
+    expires_at TIMESTAMP    NOT NULL,
+    PRIMARY KEY (queue, bucket)
+);
+
+CREATE TABLE IF NOT EXISTS streambox_node (
+    queue        VARCHAR(200) NOT NULL,
+    node_id      VARCHAR(200) NOT NULL,
+    heartbeat_at TIMESTAMP    NOT NULL,
+    PRIMARY KEY (queue, node_id)
+);
+
+CREATE TABLE IF NOT EXISTS streambox_replay (
+    name       VARCHAR(200) NOT NULL PRIMARY KEY,
+    created_at TIMESTAMP    NOT NULL,
+    id         UUID         NOT NULL,
+    replayed   BIGINT       NOT NULL,
+    updated_at TIMESTAMP    NOT NULL
+);
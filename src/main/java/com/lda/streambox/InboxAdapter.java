@@ -2,16 +2,44 @@ package com.lda.streambox;
 
 import com.lda.streambox.entity.StreamBoxBasePayloadEntity;
 import com.lda.streambox.factory.InboxFactoryAbstract;
+import com.lda.streambox.ingest.StreamBoxDeduplicator;
+import com.lda.streambox.ingest.StreamBoxGroupCommitWriter;
 import com.lda.streambox.json.JsonConverter;
+import com.lda.streambox.model.StreamBoxEnvelope;
 import com.lda.streambox.model.StreamBoxEvent;
+import com.lda.streambox.port.StreamBoxBatchProjection;
+import com.lda.streambox.replay.StreamBoxReplayCheckpointStore;
+import com.lda.streambox.replay.StreamBoxReplayOptions;
+import com.lda.streambox.replay.StreamBoxReplayer;
 import com.lda.streambox.repository.StreamBoxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+@Slf4j
 public abstract class InboxAdapter<E extends StreamBoxBasePayloadEntity, T extends StreamBoxEvent>
         extends StreamBoxAbsAdapter<E> {
 
     protected final JsonConverter jsonConverter;
     protected final StreamBoxRepository<E> inBoxRepository;
     protected final InboxFactoryAbstract<E, T> streamBoxFactory;
+    protected StreamBoxGroupCommitWriter<E> groupCommitWriter;
+    protected StreamBoxDeduplicator deduplicator = StreamBoxDeduplicator.NONE;
+    private TransactionTemplate projectionTransaction;
 
     protected InboxAdapter(
             JsonConverter jsonConverter,
@@ -25,16 +53,269 @@ public abstract class InboxAdapter<E extends StreamBoxBasePayloadEntity, T exten
     }
 
     public void addFromConsumer(String json) {
-        final var entity = streamBoxFactory.createEntity(json, jsonConverter);
-        inBoxRepository.save(entity);
+        this.add(jsonConverter.fromEnvelope(json), json);
+    }
+
+    /**
+     * Preferred when the consumer has the raw message bytes: the envelope is read in a single
+     * pass and the payload is only decoded if needed.
+     */
+    public void addFromConsumer(byte[] json) {
+        this.add(jsonConverter.fromEnvelope(json), legacyJson(json));
+    }
+
+    public void addFromConsumer(StreamBoxEnvelope envelope) {
+        this.add(envelope, null);
+    }
+
+    private void add(StreamBoxEnvelope envelope, String json) {
+        if (deduplicator.isDuplicate(envelope.id())) {
+            log.debug("Duplicate inbox message {} skipped", envelope.id());
+            return;
+        }
+        final var entity = this.createEntity(envelope, json);
+        jsonConverter.compress(entity);
+        streamBoxFactory.onSaved(this.save(entity, envelope.id()), envelope, jsonConverter);
+        deduplicator.markSeen(envelope.id());
+    }
+
+    /**
+     * A message rejected by the unique constraint is already stored: it is marked seen as well,
+     * so its next redeliveries are filtered before the INSERT.
+     */
+    private E save(E entity, UUID sourceId) {
+        try {
+            return inBoxRepository.save(entity);
+        } catch (DataIntegrityViolationException e) {
+            deduplicator.markSeen(sourceId);
+            throw e;
+        }
+    }
+
+    /**
+     * Filters recently seen messages (by envelope id) before they reach the database.
+     */
+    public void setDeduplicator(StreamBoxDeduplicator deduplicator) {
+        this.deduplicator = deduplicator;
+    }
+
+    /**
+     * Transaction manager of the projections, set by the schedulers from the input's
+     * {@code transaction-manager}: each {@code handleProjections} call of the batch path, and each
+     * event replayed after a failed call, then commits or rolls back on its own.
+     */
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        if (transactionManager == null) {
+            this.projectionTransaction = null;
+            return;
+        }
+        // A new transaction even inside a caller's one, so a failed group rolls back alone.
+        final TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.projectionTransaction = template;
+    }
+
+    private void inProjectionTransaction(Runnable projection) {
+        if (projectionTransaction == null) {
+            projection.run();
+            return;
+        }
+        projectionTransaction.executeWithoutResult(status -> projection.run());
+    }
+
+    /**
+     * Enables group-commit ingestion for {@link #addFromConsumerAsync(String)}.
+     */
+    public void setGroupCommitWriter(StreamBoxGroupCommitWriter<E> groupCommitWriter) {
+        this.groupCommitWriter = groupCommitWriter;
+    }
+
+    /**
+     * Same as {@link #addFromConsumer(String)}, but the returned future completes once the row
+     * is committed (with {@code null} for a filtered duplicate). Goes through the group-commit
+     * writer when one is set (blocking while its queue is full), otherwise saves synchronously.
+     */
+    public CompletableFuture<E> addFromConsumerAsync(String json) {
+        return this.addAsync(jsonConverter.fromEnvelope(json), json);
+    }
+
+    public CompletableFuture<E> addFromConsumerAsync(byte[] json) {
+        return this.addAsync(jsonConverter.fromEnvelope(json), legacyJson(json));
+    }
+
+    public CompletableFuture<E> addFromConsumerAsync(StreamBoxEnvelope envelope) {
+        return this.addAsync(envelope, null);
+    }
+
+    private CompletableFuture<E> addAsync(StreamBoxEnvelope envelope, String json) {
+        if (deduplicator.isDuplicate(envelope.id())) {
+            log.debug("Duplicate inbox message {} skipped", envelope.id());
+            return CompletableFuture.completedFuture(null);
+        }
+        final var entity = this.createEntity(envelope, json);
+        jsonConverter.compress(entity);
+        final CompletableFuture<E> saved = groupCommitWriter == null
+                ? CompletableFuture.completedFuture(this.save(entity, envelope.id()))
+                : groupCommitWriter.submit(entity).whenComplete((savedEntity, failure) -> {
+                    if (failure instanceof DataIntegrityViolationException) {
+                        deduplicator.markSeen(envelope.id());
+                    }
+                });
+        return saved.thenApply(savedEntity -> {
+            streamBoxFactory.onSaved(savedEntity, envelope, jsonConverter);
+            deduplicator.markSeen(envelope.id());
+            return savedEntity;
+        });
+    }
+
+    /**
+     * Factories still overriding the deprecated {@code createEntity(String, JsonConverter)} get
+     * the raw message, so their own columns (e.g. {@code refOutbox}) keep being filled.
+     */
+    @SuppressWarnings("deprecation")
+    private E createEntity(StreamBoxEnvelope envelope, String json) {
+        if (!streamBoxFactory.hasLegacyEntityHook()) {
+            return streamBoxFactory.createEntity(envelope);
+        }
+        if (json == null) {
+            throw new IllegalStateException(streamBoxFactory.getClass().getName()
+                    + " overrides the deprecated createEntity(String, JsonConverter), which needs the raw message:"
+                    + " override createEntity(StreamBoxEnvelope) instead");
+        }
+        return streamBoxFactory.createEntity(json, jsonConverter);
+    }
+
+    private String legacyJson(byte[] json) {
+        return streamBoxFactory.hasLegacyEntityHook() ? new String(json, StandardCharsets.UTF_8) : null;
     }
 
     public void handleEvent(E entity) {
         final var event = streamBoxFactory.createEvent(entity, jsonConverter);
         this.handleProjection(event);
-        this.finish(entity);
     }
 
     protected abstract void handleProjection(final T event);
 
+    /**
+     * Replay of the FINISHED rows through the projection handlers, e.g. to rebuild a read model.
+     * Runs on the caller's thread when {@link StreamBoxReplayer#run()} is called, and resumes from
+     * the checkpoint saved under {@code name}. Each lane is applied in its own transaction (see
+     * {@link #setTransactionManager}); lanes of a failed page are applied again by the next run.
+     */
+    @SuppressWarnings("unchecked")
+    public StreamBoxReplayer<E, T> replayer(String name, StreamBoxReplayOptions options, StreamBoxReplayCheckpointStore checkpoints) {
+        return new StreamBoxReplayer<>(
+                name,
+                (after, until, limit) -> inBoxRepository.findReplayPage(after.createdAt(), after.id(), until, limit),
+                entity -> streamBoxFactory.createEvent(entity, jsonConverter),
+                this::orderingKey,
+                events -> this.inProjectionTransaction(() -> {
+                    if (this instanceof StreamBoxBatchProjection<?, ?> projection) {
+                        ((StreamBoxBatchProjection<E, T>) projection).handleProjections(events);
+                    } else {
+                        events.forEach(this::handleProjection);
+                    }
+                }),
+                options,
+                checkpoints);
+    }
+
+    /**
+     * Batch path of the adapters implementing {@link StreamBoxBatchProjection}: the decoded batch
+     * goes to {@link StreamBoxBatchProjection#handleProjections} calls, each in its own transaction
+     * (see {@link #setTransactionManager}). Other adapters are not called here by the scheduler,
+     * their rows go through {@code doHandle} one by one.
+     */
+    @SuppressWarnings("unchecked")
+    public void doHandleBatch(List<E> batch, Collection<UUID> handled, Collection<UUID> failed) {
+        if (!(this instanceof StreamBoxBatchProjection<?, ?>)) {
+            this.handleOneByOne(batch, handled, failed);
+            return;
+        }
+        final var projection = (StreamBoxBatchProjection<E, T>) this;
+
+        // Decode first: an undecodable row fails alone and holds back the later rows of its key.
+        final List<E> rows = new ArrayList<>(batch.size());
+        final List<T> events = new ArrayList<>(batch.size());
+        Set<String> failedKeys = null;
+        for (E entity : batch) {
+            final String key = orderingKey(entity);
+            if (key != null && failedKeys != null && failedKeys.contains(key)) {
+                continue;
+            }
+            try {
+                events.add(streamBoxFactory.createEvent(entity, jsonConverter));
+                rows.add(entity);
+            } catch (RuntimeException e) {
+                log.error("StreamBox row {} could not be decoded (attempt {})", entity.getId(), entity.getAttempts() + 1, e);
+                failed.add(entity.getId());
+                if (key != null) {
+                    if (failedKeys == null) failedKeys = new HashSet<>();
+                    failedKeys.add(key);
+                }
+            }
+        }
+
+        for (List<Integer> group : projectionGroups(rows)) {
+            final List<E> groupRows = new ArrayList<>(group.size());
+            final List<T> groupEvents = new ArrayList<>(group.size());
+            for (int i : group) {
+                groupRows.add(rows.get(i));
+                groupEvents.add(events.get(i));
+            }
+            try {
+                this.inProjectionTransaction(() -> projection.handleProjections(groupEvents));
+                groupRows.forEach(entity -> handled.add(entity.getId()));
+            } catch (RuntimeException e) {
+                log.warn("StreamBox batch projection of {} events failed, replaying them one by one", groupRows.size(), e);
+                this.handleOneByOne(groupRows, handled, failed);
+            }
+        }
+    }
+
+    // A failure skips the remaining rows of the same ordering key only.
+    private void handleOneByOne(List<E> rows, Collection<UUID> handled, Collection<UUID> failed) {
+        Set<String> failedKeys = null;
+        for (E entity : rows) {
+            final String key = orderingKey(entity);
+            if (key != null && failedKeys != null && failedKeys.contains(key)) {
+                continue;
+            }
+            try {
+                this.inProjectionTransaction(() -> this.handleEvent(entity));
+                handled.add(entity.getId());
+            } catch (RuntimeException e) {
+                log.error("StreamBox row {} failed (attempt {})", entity.getId(), entity.getAttempts() + 1, e);
+                failed.add(entity.getId());
+                if (key != null) {
+                    if (failedKeys == null) failedKeys = new HashSet<>();
+                    failedKeys.add(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Row indexes grouped by event type (created_at order kept within a group), or a single
+     * group when a partition key has events of several types, whose relative order then matters.
+     */
+    private List<List<Integer>> projectionGroups(List<E> rows) {
+        final Map<String, String> typeByKey = new HashMap<>();
+        for (E entity : rows) {
+            final String key = orderingKey(entity);
+            if (key == null) continue;
+            final String type = typeByKey.putIfAbsent(key, entity.getType());
+            if (type != null && !type.equals(entity.getType())) {
+                final List<Integer> all = new ArrayList<>(rows.size());
+                for (int i = 0; i < rows.size(); i++) all.add(i);
+                return List.of(all);
+            }
+        }
+        final Map<String, List<Integer>> byType = new LinkedHashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            byType.computeIfAbsent(rows.get(i).getType(), type -> new ArrayList<>()).add(i);
+        }
+        return List.copyOf(byType.values());
+    }
+
 }
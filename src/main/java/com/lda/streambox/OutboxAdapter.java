@@ -3,17 +3,51 @@ package com.lda.streambox;
 import com.lda.streambox.entity.StreamBoxBasePayloadEntity;
 import com.lda.streambox.factory.OutboxFactoryInterface;
 import com.lda.streambox.json.JsonConverter;
+import com.lda.streambox.local.StreamBoxLocalDispatcher;
+import com.lda.streambox.local.StreamBoxLocalHandler;
 import com.lda.streambox.model.StreamBoxEvent;
 import com.lda.streambox.model.StreamBoxWrapper;
+import com.lda.streambox.port.StreamBoxBatchInput;
+import com.lda.streambox.register.StreamBoxEventRegistry;
 import com.lda.streambox.repository.StreamBoxRepository;
+import com.lda.streambox.scheduler.StreamBoxScheduler;
+import com.lda.streambox.scheduler.StreamBoxSchedulerRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.BeanNameAware;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@Slf4j
 public abstract class OutboxAdapter<T extends StreamBoxBasePayloadEntity, E extends StreamBoxEvent>
-        extends StreamBoxAbsAdapter<T> {
+        extends StreamBoxAbsAdapter<T> implements BeanNameAware {
 
     protected final JsonConverter jsonConverter;
     protected final StreamBoxRepository<T> outBoxRepository;
     protected final OutboxFactoryInterface<T, StreamBoxWrapper<E>> streamBoxFactory;
 
+    private final Object wakeUpKey = new Object();
+    private final Object localKey = new Object();
+    private final List<StreamBoxLocalHandler<E>> localHandlers = new CopyOnWriteArrayList<>();
+    private String beanName;
+    private StreamBoxSchedulerRegistry schedulerRegistry;
+    private StreamBoxEventRegistry eventRegistry;
+    private volatile StreamBoxLocalDispatcher localDispatcher;
+    private Duration localGrace;
+
     protected OutboxAdapter(JsonConverter jsonConverter, StreamBoxRepository<T> outBoxRepository, OutboxFactoryInterface<T, StreamBoxWrapper<E>> streamBoxFactory) {
         super(outBoxRepository);
         this.jsonConverter = jsonConverter;
@@ -21,21 +55,244 @@ public abstract class OutboxAdapter<T extends StreamBoxBasePayloadEntity, E exte
         this.streamBoxFactory = streamBoxFactory;
     }
 
+    @Override
+    public void setBeanName(String beanName) {
+        this.beanName = beanName;
+    }
+
+    @Autowired(required = false)
+    public void setStreamBoxSchedulerRegistry(StreamBoxSchedulerRegistry schedulerRegistry) {
+        this.schedulerRegistry = schedulerRegistry;
+    }
+
+    /**
+     * Enables coalescing of the event types declared collapsible, on the batched send path only
+     * ({@link StreamBoxBatchInput}).
+     */
+    @Autowired(required = false)
+    public void setStreamBoxEventRegistry(StreamBoxEventRegistry eventRegistry) {
+        this.eventRegistry = eventRegistry;
+        if (eventRegistry != null && eventRegistry.hasCollapsibleTypes() && !(this instanceof StreamBoxBatchInput<?>)) {
+            log.warn("{} does not implement StreamBoxBatchInput: its collapsible events are sent one by one, "
+                    + "never coalesced", getClass().getName());
+        }
+    }
+
+    /**
+     * Registers an in-process consumer of this outbox's events, used by the hybrid fast path
+     * when local dispatch is enabled. All handlers must succeed for the row to be finished locally.
+     */
+    public void addLocalHandler(StreamBoxLocalHandler<E> handler) {
+        localHandlers.add(handler);
+    }
+
+    /**
+     * Enables the hybrid fast path ({@code null} disables it). Rows handed to it are hidden from
+     * the poller for {@code grace}, after which the poller takes over whatever was not finished.
+     */
+    public void setLocalDispatcher(StreamBoxLocalDispatcher localDispatcher, Duration grace) {
+        this.localDispatcher = localDispatcher;
+        this.localGrace = grace;
+    }
+
     public void addEvent(E streamBoxEvent) {
         final var wrapper = StreamBoxWrapper.<E>builder()
                 .type(streamBoxEvent.getClass().getSimpleName())
                 .payload(streamBoxEvent)
                 .build();
         final var streamBoxEntity = streamBoxFactory.createEntity(wrapper, jsonConverter);
+        if (streamBoxEntity.getPartitionKey() == null) {
+            streamBoxEntity.setPartitionKey(streamBoxEvent.partitionKey());
+        }
+        jsonConverter.compress(streamBoxEntity);
+        final StreamBoxLocalDispatcher dispatcher = this.localDispatcher;
+        if (dispatcher != null && dispatcher.isRunning() && !localHandlers.isEmpty()) {
+            streamBoxEntity.setNextAttemptAt(Instant.now().plus(localGrace));
+            final T saved = outBoxRepository.save(streamBoxEntity);
+            this.dispatchLocallyAfterCommit(dispatcher, saved.getId(), streamBoxEvent);
+            return;
+        }
         outBoxRepository.save(streamBoxEntity);
+        this.dispatchAfterCommit();
     }
 
     public void handleEvent(T streamBoxEntity) {
-        final var json = jsonConverter.toJson(streamBoxEntity);
+        final var json = jsonConverter.toEnvelope(streamBoxEntity);
         this.sendToMessaging(json);
-        this.finish(streamBoxEntity);
+    }
+
+    /**
+     * Serializes the batch and hands it to {@link #sendToMessagingBatch(List)} in one call.
+     * Delivered rows are reported as handled, the first undelivered one as failed; the rest
+     * were not attempted and are sent again at the next poll.
+     * Collapsible events superseded by a newer one of the same key in the batch are reported
+     * as handled without being sent. A row that cannot be serialized is reported as failed and
+     * holds back the later rows of its ordering key until the next poll.
+     */
+    public void handleEvents(List<T> batch, Collection<UUID> handled, Collection<UUID> failed) {
+        final List<T> coalesced = this.coalesce(batch, handled);
+        final List<T> streamBoxEntities = new ArrayList<>(coalesced.size());
+        final List<String> jsons = new ArrayList<>(coalesced.size());
+        Set<String> failedKeys = null;
+        for (T streamBoxEntity : coalesced) {
+            final String key = orderingKey(streamBoxEntity);
+            if (key != null && failedKeys != null && failedKeys.contains(key)) {
+                continue;
+            }
+            try {
+                jsons.add(jsonConverter.toEnvelope(streamBoxEntity));
+                streamBoxEntities.add(streamBoxEntity);
+            } catch (RuntimeException e) {
+                log.error("StreamBox row {} could not be serialized (attempt {})",
+                        streamBoxEntity.getId(), streamBoxEntity.getAttempts() + 1, e);
+                failed.add(streamBoxEntity.getId());
+                if (key != null) {
+                    if (failedKeys == null) failedKeys = new HashSet<>();
+                    failedKeys.add(key);
+                }
+            }
+        }
+        if (streamBoxEntities.isEmpty()) {
+            return;
+        }
+        final BitSet sent = this.sendToMessagingBatch(jsons);
+        for (int i = sent.nextSetBit(0); i >= 0; i = sent.nextSetBit(i + 1)) {
+            handled.add(streamBoxEntities.get(i).getId());
+        }
+        final int firstUndelivered = sent.nextClearBit(0);
+        if (firstUndelivered < streamBoxEntities.size()) {
+            failed.add(streamBoxEntities.get(firstUndelivered).getId());
+        }
+    }
+
+    /**
+     * Keeps the newest row per (type, partition key) of the collapsible types, in batch order,
+     * and reports the superseded ones as handled.
+     */
+    private List<T> coalesce(List<T> batch, Collection<UUID> handled) {
+        if (eventRegistry == null || !eventRegistry.hasCollapsibleTypes() || batch.size() < 2) {
+            return batch;
+        }
+        final Map<List<String>, Integer> newest = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            final T entity = batch.get(i);
+            if (entity.getPartitionKey() != null && eventRegistry.isCollapsible(entity.getType())) {
+                newest.put(List.of(entity.getType(), entity.getPartitionKey()), i);
+            }
+        }
+        if (newest.isEmpty()) {
+            return batch;
+        }
+        final List<T> kept = new ArrayList<>(batch.size());
+        int superseded = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            final T entity = batch.get(i);
+            final Integer last = entity.getPartitionKey() == null
+                    ? null
+                    : newest.get(List.of(entity.getType(), entity.getPartitionKey()));
+            if (last != null && last != i) {
+                handled.add(entity.getId());
+                superseded++;
+            } else {
+                kept.add(entity);
+            }
+        }
+        if (superseded > 0) {
+            log.debug("{} superseded outbox events coalesced", superseded);
+        }
+        return kept;
+    }
+
+    /**
+     * Batched sends are opt-in: declare {@code implements StreamBoxBatchInput<T>} on the adapter
+     * and the scheduler calls this method (and not {@code doHandle}) with each locked batch.
+     */
+    public void doHandleBatch(List<T> batch, Collection<UUID> handled, Collection<UUID> failed) {
+        this.handleEvents(batch, handled, failed);
     }
 
     protected abstract void sendToMessaging(final String json);
 
+    /**
+     * Sends a batch of messages and returns the indexes of the delivered ones.
+     * Override to use the producer-side batching of your broker client. The default sends
+     * one by one and stops at the first failure, so later messages keep their order.
+     */
+    protected BitSet sendToMessagingBatch(final List<String> jsons) {
+        final BitSet sent = new BitSet(jsons.size());
+        for (int i = 0; i < jsons.size(); i++) {
+            try {
+                this.sendToMessaging(jsons.get(i));
+                sent.set(i);
+            } catch (RuntimeException e) {
+                log.error("Failed to send outbox message, {} left PENDING", jsons.size() - i, e);
+                break;
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * Hands the in-memory events to the local dispatcher once the surrounding transaction
+     * commits (right away without one), so a rolled back row is never handled.
+     */
+    @SuppressWarnings("unchecked")
+    private void dispatchLocallyAfterCommit(StreamBoxLocalDispatcher dispatcher, UUID id, E streamBoxEvent) {
+        final Runnable handling = () -> localHandlers.forEach(handler -> handler.handle(id, streamBoxEvent));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dispatcher.offer(id, handling);
+            return;
+        }
+        List<LocalDispatch> pending = (List<LocalDispatch>) TransactionSynchronizationManager.getResource(localKey);
+        if (pending == null) {
+            final List<LocalDispatch> committed = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(localKey, committed);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    committed.forEach(entry -> dispatcher.offer(entry.id(), entry.handling()));
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(localKey);
+                }
+            });
+            pending = committed;
+        }
+        pending.add(new LocalDispatch(id, handling));
+    }
+
+    /**
+     * Wakes this adapter's scheduler once the surrounding transaction commits, when
+     * immediate dispatch is enabled for it. One wake-up per transaction, whatever the
+     * number of events added.
+     */
+    private void dispatchAfterCommit() {
+        if (schedulerRegistry == null || beanName == null) return;
+        final StreamBoxScheduler<?> scheduler = schedulerRegistry.get(beanName);
+        if (scheduler == null || !scheduler.isWakeUpEnabled()) return;
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            scheduler.wakeUp();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(wakeUpKey)) return;
+
+        TransactionSynchronizationManager.bindResource(wakeUpKey, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                scheduler.wakeUp();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(wakeUpKey);
+            }
+        });
+    }
+
+    private record LocalDispatch(UUID id, Runnable handling) {
+    }
 }
@@ -2,10 +2,17 @@ package com.lda.streambox;
 
 import com.lda.streambox.entity.StreamBoxBasePayloadEntity;
 import com.lda.streambox.entity.StreamBoxBaseStatusEnum;
+import com.lda.streambox.partition.StreamBoxPartitions;
 import com.lda.streambox.port.StreamBoxInput;
+import com.lda.streambox.repository.StreamBoxJdbcBatchFetcher;
 import com.lda.streambox.repository.StreamBoxRepository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 public abstract class StreamBoxAbsAdapter
         <T extends StreamBoxBasePayloadEntity>
@@ -13,13 +20,33 @@ public abstract class StreamBoxAbsAdapter
 
     protected final StreamBoxRepository<T> streamBoxRepository;
 
+    private StreamBoxJdbcBatchFetcher<T> jdbcBatchFetcher;
+
     protected StreamBoxAbsAdapter(StreamBoxRepository<T> streamBoxRepository) {
         this.streamBoxRepository = streamBoxRepository;
     }
 
+    /**
+     * Fetches batches through plain JDBC instead of managed entities ({@code null} for JPA).
+     */
+    public void setJdbcBatchFetcher(StreamBoxJdbcBatchFetcher<T> jdbcBatchFetcher) {
+        this.jdbcBatchFetcher = jdbcBatchFetcher;
+    }
+
     @Override
     public List<T> lockNextBatch(int limit) {
-        return streamBoxRepository.lockNextBatch(limit);
+        if (jdbcBatchFetcher != null) {
+            return jdbcBatchFetcher.lockNextBatch(limit, Instant.now(), null);
+        }
+        return streamBoxRepository.lockNextBatch(limit, Instant.now());
+    }
+
+    @Override
+    public List<T> lockNextBatch(int limit, Collection<Integer> slots) {
+        if (jdbcBatchFetcher != null) {
+            return jdbcBatchFetcher.lockNextBatch(limit, Instant.now(), slots);
+        }
+        return streamBoxRepository.lockNextBatchInSlots(limit, Instant.now(), slots);
     }
 
     @Override
@@ -28,4 +55,105 @@ public abstract class StreamBoxAbsAdapter
         streamBoxRepository.save(streamBoxEntity);
     }
 
+    @Override
+    public void finishAll(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        streamBoxRepository.finishAll(ids);
+    }
+
+    @Override
+    public List<T> claimNextBatch(int limit, Collection<Integer> slots, String owner, Instant leaseUntil) {
+        final Instant now = Instant.now();
+        if (jdbcBatchFetcher != null) {
+            return jdbcBatchFetcher.claimNextBatch(limit, now, slots, owner, leaseUntil);
+        }
+        return slots == null
+                ? streamBoxRepository.claimNextBatch(limit, now, owner, leaseUntil)
+                : streamBoxRepository.claimNextBatchInSlots(limit, now, slots, owner, leaseUntil);
+    }
+
+    @Override
+    public void release(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        streamBoxRepository.release(ids);
+    }
+
+    @Override
+    public int reapExpiredClaims(Instant now) {
+        return streamBoxRepository.reapExpiredClaims(now);
+    }
+
+    @Override
+    public void retryLater(T streamBoxEntity, int attempts, Instant nextAttemptAt) {
+        streamBoxRepository.retryLater(streamBoxEntity.getId(), attempts, nextAttemptAt);
+    }
+
+    @Override
+    public void markDead(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        streamBoxRepository.markDead(ids);
+    }
+
+    @Override
+    public int purgeExpired(StreamBoxBaseStatusEnum status, Instant olderThan, int chunkSize) {
+        int purged = 0;
+        List<UUID> ids;
+        do {
+            ids = streamBoxRepository.findExpiredIds(status.name(), olderThan, chunkSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            this.archive(ids);
+            purged += streamBoxRepository.deleteAllByIds(ids);
+        } while (ids.size() == chunkSize);
+        return purged;
+    }
+
+    /**
+     * Gives rows without a partition slot (written before the column existed) the slot of their
+     * key, so partitioned polling sees them. Run before the buckets are polled.
+     */
+    public int assignMissingSlots(int chunkSize) {
+        int assigned = 0;
+        List<T> rows;
+        do {
+            rows = streamBoxRepository.findUnslotted(chunkSize);
+            final Map<Integer, List<UUID>> bySlot = rows.stream().collect(Collectors.groupingBy(
+                    row -> StreamBoxPartitions.slotOf(row.getPartitionKey()),
+                    Collectors.mapping(T::getId, Collectors.toList())));
+            for (Map.Entry<Integer, List<UUID>> slot : bySlot.entrySet()) {
+                assigned += streamBoxRepository.assignSlot(slot.getValue(), slot.getKey());
+            }
+        } while (rows.size() == chunkSize);
+        return assigned;
+    }
+
+    /**
+     * Called with each chunk of expired rows right before they are deleted.
+     * Override to copy them to an archive table (keep it idempotent, a chunk may be retried).
+     */
+    protected void archive(List<UUID> ids) {
+    }
+
+    @Override
+    public long countPending() {
+        return streamBoxRepository.countPending();
+    }
+
+    @Override
+    public Instant oldestPendingCreatedAt() {
+        return streamBoxRepository.findOldestPendingCreatedAt();
+    }
+
+    @Override
+    public String orderingKey(T streamBoxEntity) {
+        return streamBoxEntity.getPartitionKey();
+    }
+
 }
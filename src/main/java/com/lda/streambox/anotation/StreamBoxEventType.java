@@ -9,4 +9,11 @@ import java.lang.annotation.Target;
 @Target(ElementType.TYPE)
 public @interface StreamBoxEventType {
     String value();
+
+    /**
+     * State snapshot: within an outbox batch only the newest event per
+     * {@link com.lda.streambox.model.StreamBoxEvent#partitionKey() partition key} is sent,
+     * older ones are finished without being published. Keyless events are always sent.
+     */
+    boolean collapsible() default false;
 }
\ No newline at end of file
@@ -1,16 +1,36 @@
 package com.lda.streambox.autoconfig;
 
 import com.lda.streambox.json.JsonConverter;
+import com.lda.streambox.json.StreamBoxCodec;
+import com.lda.streambox.json.StreamBoxCompressionProperties;
+import com.lda.streambox.json.StreamBoxPayloadCompressor;
+import com.lda.streambox.register.StreamBoxEventRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import tools.jackson.databind.ObjectMapper;
 
 @Configuration
+@EnableConfigurationProperties(StreamBoxCompressionProperties.class)
 public class StreamBoxAutoConfiguration {
 
     @Bean
-    JsonConverter jsonConverter(ObjectMapper objectMapper) {
-        return new JsonConverter(objectMapper);
+    JsonConverter jsonConverter(
+            ObjectMapper objectMapper,
+            ObjectProvider<StreamBoxCodec> payloadCodec,
+            ObjectProvider<StreamBoxEventRegistry> eventRegistry,
+            StreamBoxCompressionProperties compression,
+            ObjectProvider<StreamBoxPayloadCompressor.Observer> compressionObserver) {
+        JsonConverter jsonConverter = new JsonConverter(objectMapper, payloadCodec.getIfAvailable());
+        if (compression.isEnabled()) {
+            StreamBoxPayloadCompressor compressor = new StreamBoxPayloadCompressor(compression.getThreshold());
+            compressionObserver.ifAvailable(compressor::setObserver);
+            jsonConverter.setPayloadCompressor(compressor);
+        }
+        // Warm the per-type readers/writers of every known event.
+        eventRegistry.ifAvailable(registry -> registry.eventClasses().forEach(jsonConverter::register));
+        return jsonConverter;
     }
 
 }
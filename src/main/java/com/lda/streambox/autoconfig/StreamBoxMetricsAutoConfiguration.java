@@ -0,0 +1,51 @@
+package com.lda.streambox.autoconfig;
+
+import com.lda.streambox.json.StreamBoxPayloadCompressor;
+import com.lda.streambox.metrics.StreamBoxCompressionMetrics;
+import com.lda.streambox.metrics.StreamBoxMetrics;
+import com.lda.streambox.port.StreamBoxInput;
+import com.lda.streambox.scheduler.StreamBoxRetentionJob;
+import com.lda.streambox.scheduler.StreamBoxSchedulerObserver;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Publishes scheduler metrics when Micrometer is on the classpath.
+ * The registry is looked up when schedulers start, so no ordering with the actuator is needed.
+ */
+@AutoConfiguration(before = StreamBoxSchedulersAutoConfiguration.class)
+@ConditionalOnClass(MeterRegistry.class)
+public class StreamBoxMetricsAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public StreamBoxSchedulerObserver.Factory streamBoxMetricsObserverFactory(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new StreamBoxSchedulerObserver.Factory() {
+            @Override
+            public StreamBoxSchedulerObserver create(String name, String type, StreamBoxInput<?> input) {
+                MeterRegistry registry = meterRegistry.getIfAvailable();
+                return registry == null
+                        ? StreamBoxSchedulerObserver.NOOP
+                        : StreamBoxMetrics.factory(registry).create(name, type, input);
+            }
+
+            @Override
+            public void onRetention(StreamBoxRetentionJob retention) {
+                meterRegistry.ifAvailable(registry -> StreamBoxMetrics.bindRetention(registry, retention));
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public StreamBoxPayloadCompressor.Observer streamBoxCompressionMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        return registry == null
+                ? StreamBoxPayloadCompressor.Observer.NOOP
+                : new StreamBoxCompressionMetrics(registry);
+    }
+}
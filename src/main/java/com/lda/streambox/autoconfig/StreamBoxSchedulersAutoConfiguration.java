@@ -1,27 +1,55 @@
 package com.lda.streambox.autoconfig;
 
+import com.lda.streambox.InboxAdapter;
+import com.lda.streambox.OutboxAdapter;
+import com.lda.streambox.StreamBoxAbsAdapter;
+import com.lda.streambox.local.StreamBoxLocalDispatcher;
+import com.lda.streambox.partition.StreamBoxPartitionLeaseManager;
 import com.lda.streambox.port.StreamBoxInput;
+import com.lda.streambox.repository.StreamBoxJdbcBatchFetcher;
+import com.lda.streambox.scheduler.StreamBoxRetentionJob;
+import com.lda.streambox.scheduler.StreamBoxRetentionProperties;
+import com.lda.streambox.scheduler.StreamBoxRetryPolicy;
 import com.lda.streambox.scheduler.StreamBoxScheduler;
+import com.lda.streambox.scheduler.StreamBoxSchedulerObserver;
 import com.lda.streambox.scheduler.StreamBoxSchedulerRegistry;
+import com.lda.streambox.scheduler.StreamBoxSchedulerTask;
 import com.lda.streambox.scheduler.StreamBoxSchedulersProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.SmartLifecycle;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.ResolvableType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.ResourceTransactionManager;
+import org.springframework.util.ClassUtils;
 
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.UUID;
 import java.util.concurrent.ScheduledFuture;
 
 @AutoConfiguration
-@EnableConfigurationProperties(StreamBoxSchedulersProperties.class)
+@EnableConfigurationProperties({StreamBoxSchedulersProperties.class, StreamBoxRetentionProperties.class})
 @ConditionalOnProperty(prefix = "streambox.scheduler", name = "enabled", havingValue = "true")
+@Slf4j
 public class StreamBoxSchedulersAutoConfiguration {
 
     /**
@@ -29,10 +57,14 @@ public class StreamBoxSchedulersAutoConfiguration {
      * You can remove this bean if you mandate apps to provide a TaskScheduler.
      */
     @Bean
-    public TaskScheduler streamBoxTaskScheduler() {
+    public TaskScheduler streamBoxTaskScheduler(StreamBoxSchedulersProperties props) {
         ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
-        scheduler.setPoolSize(4);
+        scheduler.setPoolSize(props.getPoolSize());
         scheduler.setThreadNamePrefix("streambox-scheduler-");
+        // Keep accepting until the schedulers lifecycle has stopped, so in-flight runs
+        // are not rejected on shutdown.
+        scheduler.setAcceptTasksAfterContextClose(true);
+        scheduler.setPhase(Integer.MAX_VALUE - 1);
         scheduler.initialize();
         return scheduler;
     }
@@ -54,48 +86,167 @@ public class StreamBoxSchedulersAutoConfiguration {
             Map<String, StreamBoxInput> inputs,
             TaskScheduler taskScheduler,
             StreamBoxSchedulerRegistry streamBoxSchedulerRegistry,
-            StreamBoxSchedulersProperties props) {
+            StreamBoxSchedulersProperties props,
+            StreamBoxRetentionProperties retentionProps,
+            ObjectProvider<StreamBoxSchedulerObserver.Factory> observerFactory,
+            ObjectProvider<PlatformTransactionManager> transactionManager,
+            BeanFactory beanFactory) {
 
         return new SmartLifecycle() {
             private volatile boolean running = false;
-            private final Map<String, ScheduledFuture<?>> futures = new ConcurrentHashMap<>();
+            private final List<StreamBoxSchedulerTask> tasks = new ArrayList<>();
+            private final List<AutoCloseable> executors = new ArrayList<>();
+            private final List<OutboxAdapter<?, ?>> localOutboxes = new ArrayList<>();
+            private final List<StreamBoxLocalDispatcher> localDispatchers = new ArrayList<>();
+            private final List<StreamBoxPartitionLeaseManager> leaseManagers = new ArrayList<>();
+            private final List<ScheduledFuture<?>> leaseRenewals = new ArrayList<>();
+            private final List<ScheduledFuture<?>> claimReapers = new ArrayList<>();
+            private ScheduledFuture<?> retention;
 
             @Override
             public void start() {
+                // Fail before planning anything when an input lacks a mode it is configured for.
+                inputs.forEach((beanName, input) -> checkSupported(beanName, input, configFor(props, beanName, input)));
+
                 // For each StreamBoxInput bean, create a scheduler instance and plan it
                 inputs.forEach((beanName, input) -> {
                     String type = inferTypeFromBeanNameOrInterface(beanName, input); // "inbox" | "outbox" | other
-                    StreamBoxScheduler<?> scheduler = new StreamBoxScheduler<>(input);
 
                     // Merge defaults → type → instance
-                    StreamBoxSchedulersProperties.ScheduleConfig merged = mergeConfig(
-                            props.getDefaults(),
-                            props.getTypes().get(type),
-                            props.getInstances().get(beanName)
-                    );
-
-                    Runnable task = scheduler.runnable(merged.getLimit());
-                    Duration rate = parseDuration(merged.getFixedRate());
-                    Duration initial = parseDuration(merged.getInitialDelay());
-
-                    ScheduledFuture<?> future = taskScheduler.scheduleAtFixedRate(
-                            task,
-                            Instant.now().plus(initial),
-                            rate);
-
-                    futures.put(beanName, future);
+                    StreamBoxSchedulersProperties.ScheduleConfig merged = configFor(props, beanName, input);
+
+                    StreamBoxScheduler<?> scheduler = new StreamBoxScheduler<>(input, merged.getParallelism());
+                    scheduler.setRetryPolicy(StreamBoxRetryPolicy.of(merged));
+                    observerFactory.ifAvailable(factory -> scheduler.setObserver(factory.create(beanName, type, input)));
+                    if (Boolean.TRUE.equals(merged.getPartitioned())) {
+                        if (input instanceof StreamBoxAbsAdapter adapter) {
+                            int assigned = adapter.assignMissingSlots(merged.getLimit());
+                            if (assigned > 0) {
+                                log.info("StreamBox {}: assigned a partition slot to {} older rows", beanName, assigned);
+                            }
+                        }
+                        DataSource dataSource = dataSourceOf(beanName,
+                                transactionManagerFor(beanFactory, transactionManager, merged));
+                        StreamBoxPartitionLeaseManager leases = new StreamBoxPartitionLeaseManager(
+                                new JdbcTemplate(dataSource), beanName, nodeId(props), merged.getPartitions(),
+                                StreamBoxSchedulersProperties.parseDuration(merged.getLeaseDuration()));
+                        leases.start();
+                        scheduler.setSlots(leases::slots);
+                        leaseManagers.add(leases);
+                        leaseRenewals.add(taskScheduler.scheduleAtFixedRate(leases::renew,
+                                Instant.now().plus(leases.getLeaseDuration().dividedBy(3)),
+                                leases.getLeaseDuration().dividedBy(3)));
+                    }
+                    if (merged.getWorkers() > 1 && !Boolean.TRUE.equals(merged.getClaim())) {
+                        log.info("StreamBox {}: {} workers, switching to claim mode", beanName, merged.getWorkers());
+                        merged.setClaim(true);
+                    }
+                    if (Boolean.TRUE.equals(merged.getClaim())) {
+                        Duration claimLease = StreamBoxSchedulersProperties.parseDuration(merged.getClaimLease());
+                        scheduler.setClaimMode(nodeId(props), claimLease);
+                        claimReapers.add(taskScheduler.scheduleAtFixedRate(
+                                () -> reapExpiredClaims(beanName, input),
+                                Instant.now().plus(claimLease.dividedBy(2)),
+                                claimLease.dividedBy(2)));
+                    }
+
+                    if (merged.getFetch() == StreamBoxSchedulersProperties.Fetch.JDBC
+                            && input instanceof StreamBoxAbsAdapter adapter) {
+                        PlatformTransactionManager fetchTransactions = transactionManagerFor(beanFactory, transactionManager, merged);
+                        adapter.setJdbcBatchFetcher(new StreamBoxJdbcBatchFetcher(
+                                ResolvableType.forClass(StreamBoxAbsAdapter.class, adapter.getClass()).resolveGeneric(0),
+                                dataSourceOf(beanName, fetchTransactions), fetchTransactions, merged.getFetchSize()));
+                    }
+                    if (input instanceof InboxAdapter<?, ?> inbox) {
+                        inbox.setTransactionManager(transactionManagerFor(beanFactory, transactionManager, merged));
+                    }
+                    if (Boolean.TRUE.equals(merged.getLocalDispatch()) && input instanceof OutboxAdapter<?, ?> outbox) {
+                        StreamBoxLocalDispatcher dispatcher = new StreamBoxLocalDispatcher(
+                                beanName, merged.getLocalQueueCapacity(), outbox::finishAll);
+                        dispatcher.start();
+                        outbox.setLocalDispatcher(dispatcher,
+                                StreamBoxSchedulersProperties.parseDuration(merged.getLocalGrace()));
+                        localOutboxes.add(outbox);
+                        localDispatchers.add(dispatcher);
+                    }
+
+                    TaskScheduler executor = executorFor(beanName, merged);
+                    for (int worker = 0; worker < merged.getWorkers(); worker++) {
+                        StreamBoxSchedulerTask task = new StreamBoxSchedulerTask(scheduler, executor, merged);
+                        if (Boolean.TRUE.equals(merged.getImmediateDispatch())) {
+                            scheduler.onWakeUp(task::wakeUp);
+                        }
+                        task.start();
+                        tasks.add(task);
+                    }
                     streamBoxSchedulerRegistry.register(beanName, scheduler);
                 });
+
+                if (retentionProps.isEnabled()) {
+                    StreamBoxRetentionJob retentionJob = new StreamBoxRetentionJob((Map) inputs, retentionProps);
+                    observerFactory.ifAvailable(factory -> factory.onRetention(retentionJob));
+                    retention = taskScheduler.scheduleAtFixedRate(
+                            retentionJob,
+                            Instant.now().plus(StreamBoxSchedulersProperties.parseDuration(retentionProps.getInitialDelay())),
+                            StreamBoxSchedulersProperties.parseDuration(retentionProps.getFixedRate()));
+                }
                 running = true;
             }
 
             @Override
             public void stop() {
-                futures.values().forEach(f -> f.cancel(false));
-                futures.clear();
+                // Drain the fast paths first, so their finished rows are flushed while the database is up.
+                localOutboxes.forEach(outbox -> outbox.setLocalDispatcher(null, null));
+                localOutboxes.clear();
+                localDispatchers.forEach(StreamBoxLocalDispatcher::close);
+                localDispatchers.clear();
+                tasks.forEach(StreamBoxSchedulerTask::stop);
+                tasks.clear();
+                executors.forEach(executor -> {
+                    try {
+                        executor.close();
+                    } catch (Exception e) {
+                        log.warn("StreamBox executor did not close cleanly", e);
+                    }
+                });
+                executors.clear();
+                claimReapers.forEach(reaper -> reaper.cancel(false));
+                claimReapers.clear();
+                leaseRenewals.forEach(renewal -> renewal.cancel(false));
+                leaseRenewals.clear();
+                leaseManagers.forEach(StreamBoxPartitionLeaseManager::stop);
+                leaseManagers.clear();
+                if (retention != null) {
+                    retention.cancel(false);
+                    retention = null;
+                }
                 running = false;
             }
 
+            // SHARED runs on the task scheduler bean, POOL / VIRTUAL get an executor of their own.
+            private TaskScheduler executorFor(String beanName, StreamBoxSchedulersProperties.ScheduleConfig config) {
+                switch (config.getExecutor()) {
+                    case POOL -> {
+                        ThreadPoolTaskScheduler pool = new ThreadPoolTaskScheduler();
+                        pool.setPoolSize(config.getPoolSize() > 0 ? config.getPoolSize() : config.getWorkers());
+                        pool.setThreadNamePrefix("streambox-" + beanName + "-");
+                        pool.initialize();
+                        executors.add(pool::destroy);
+                        return pool;
+                    }
+                    case VIRTUAL -> {
+                        SimpleAsyncTaskScheduler virtual = new SimpleAsyncTaskScheduler();
+                        virtual.setVirtualThreads(true);
+                        virtual.setThreadNamePrefix("streambox-" + beanName + "-");
+                        executors.add(virtual::close);
+                        return virtual;
+                    }
+                    default -> {
+                        return taskScheduler;
+                    }
+                }
+            }
+
             @Override
             public boolean isRunning() { return running; }
 
@@ -106,6 +257,66 @@ public class StreamBoxSchedulersAutoConfiguration {
 
     // ---- helpers ----
 
+    private StreamBoxSchedulersProperties.ScheduleConfig configFor(
+            StreamBoxSchedulersProperties props, String beanName, StreamBoxInput<?> input) {
+        return mergeConfig(
+                props.getDefaults(),
+                props.getTypes().get(inferTypeFromBeanNameOrInterface(beanName, input)),
+                props.getInstances().get(beanName));
+    }
+
+    /**
+     * Transaction manager of an input's tables: the {@code transaction-manager} bean when set,
+     * the primary one otherwise.
+     */
+    private PlatformTransactionManager transactionManagerFor(
+            BeanFactory beanFactory,
+            ObjectProvider<PlatformTransactionManager> primary,
+            StreamBoxSchedulersProperties.ScheduleConfig config) {
+        return config.getTransactionManager() != null
+                ? beanFactory.getBean(config.getTransactionManager(), PlatformTransactionManager.class)
+                : primary.getObject();
+    }
+
+    // Plain JDBC must reach the database the repositories write to, i.e. the one behind their transaction manager.
+    private DataSource dataSourceOf(String beanName, PlatformTransactionManager transactionManager) {
+        if (transactionManager instanceof JpaTransactionManager jpa && jpa.getDataSource() != null) {
+            return jpa.getDataSource();
+        }
+        if (transactionManager instanceof ResourceTransactionManager resource
+                && resource.getResourceFactory() instanceof DataSource dataSource) {
+            return dataSource;
+        }
+        throw new IllegalStateException("StreamBox " + beanName + ": transaction manager "
+                + transactionManager.getClass().getName() + " exposes no DataSource, set transaction-manager"
+                + " to the JPA or JDBC transaction manager of its tables");
+    }
+
+    /**
+     * Partitioned polling and claim mode rely on StreamBoxInput methods whose defaults throw
+     * (or do nothing); a custom input must implement them to enable these modes.
+     */
+    private void checkSupported(String beanName, StreamBoxInput<?> input, StreamBoxSchedulersProperties.ScheduleConfig config) {
+        if (Boolean.TRUE.equals(config.getPartitioned())) {
+            requireImplemented(beanName, input, "partitioned: true", "lockNextBatch", int.class, Collection.class);
+        }
+        if (Boolean.TRUE.equals(config.getClaim()) || config.getWorkers() > 1) {
+            final String mode = Boolean.TRUE.equals(config.getClaim()) ? "claim: true" : "workers > 1";
+            requireImplemented(beanName, input, mode, "claimNextBatch", int.class, Collection.class, String.class, Instant.class);
+            requireImplemented(beanName, input, mode, "reapExpiredClaims", Instant.class);
+        }
+    }
+
+    private void requireImplemented(String beanName, StreamBoxInput<?> input, String mode, String method, Class<?>... parameterTypes) {
+        // Class.getMethod prefers a class implementation over an interface default.
+        final Method implementation = ClassUtils.getMethodIfAvailable(ClassUtils.getUserClass(input), method, parameterTypes);
+        if (implementation == null || implementation.getDeclaringClass() == StreamBoxInput.class) {
+            throw new IllegalStateException("StreamBox " + beanName + " is configured with " + mode + " but "
+                    + ClassUtils.getUserClass(input).getName() + " does not implement StreamBoxInput." + method
+                    + ": extend StreamBoxAbsAdapter or implement it");
+        }
+    }
+
     private StreamBoxSchedulersProperties.ScheduleConfig mergeConfig(
             StreamBoxSchedulersProperties.ScheduleConfig defaults,
             StreamBoxSchedulersProperties.ScheduleConfig typeCfg,
@@ -117,28 +328,93 @@ public class StreamBoxSchedulersAutoConfiguration {
         merged.setFixedRate(defaults.getFixedRate());
         merged.setInitialDelay(defaults.getInitialDelay());
         merged.setLimit(defaults.getLimit());
+        merged.setMode(defaults.getMode());
+        merged.setMinInterval(defaults.getMinInterval());
+        merged.setMaxInterval(defaults.getMaxInterval());
+        merged.setDrainBudget(defaults.getDrainBudget());
+        merged.setImmediateDispatch(defaults.getImmediateDispatch());
+        merged.setParallelism(defaults.getParallelism());
+        merged.setMaxAttempts(defaults.getMaxAttempts());
+        merged.setRetryBackoff(defaults.getRetryBackoff());
+        merged.setMaxRetryBackoff(defaults.getMaxRetryBackoff());
+        merged.setPartitioned(defaults.getPartitioned());
+        merged.setPartitions(defaults.getPartitions());
+        merged.setLeaseDuration(defaults.getLeaseDuration());
+        merged.setClaim(defaults.getClaim());
+        merged.setClaimLease(defaults.getClaimLease());
+        merged.setExecutor(defaults.getExecutor());
+        merged.setPoolSize(defaults.getPoolSize());
+        merged.setWorkers(defaults.getWorkers());
+        merged.setLocalDispatch(defaults.getLocalDispatch());
+        merged.setLocalQueueCapacity(defaults.getLocalQueueCapacity());
+        merged.setLocalGrace(defaults.getLocalGrace());
+        merged.setFetch(defaults.getFetch());
+        merged.setFetchSize(defaults.getFetchSize());
+        merged.setTransactionManager(defaults.getTransactionManager());
         // type
         if (typeCfg != null) {
-            if (typeCfg.getFixedRate() != null) merged.setFixedRate(typeCfg.getFixedRate());
-            if (typeCfg.getInitialDelay() != null) merged.setInitialDelay(typeCfg.getInitialDelay());
-            if (typeCfg.getLimit() > 0) merged.setLimit(typeCfg.getLimit());
+            overrideWith(merged, typeCfg);
         }
         // instance
         if (instanceCfg != null) {
-            if (instanceCfg.getFixedRate() != null) merged.setFixedRate(instanceCfg.getFixedRate());
-            if (instanceCfg.getInitialDelay() != null) merged.setInitialDelay(instanceCfg.getInitialDelay());
-            if (instanceCfg.getLimit() > 0) merged.setLimit(instanceCfg.getLimit());
+            overrideWith(merged, instanceCfg);
         }
         return merged;
     }
 
-    private Duration parseDuration(String value) {
-        // Accept ISO-8601 (PT7S) or millis string (e.g., "7000")
-        if (value == null || value.isBlank()) return Duration.ofSeconds(7);
-        if (Character.isDigit(value.charAt(0))) {
-            return Duration.ofMillis(Long.parseLong(value));
+    private void overrideWith(
+            StreamBoxSchedulersProperties.ScheduleConfig merged,
+            StreamBoxSchedulersProperties.ScheduleConfig override) {
+        if (override.getFixedRate() != null) merged.setFixedRate(override.getFixedRate());
+        if (override.getInitialDelay() != null) merged.setInitialDelay(override.getInitialDelay());
+        if (override.getLimit() > 0) merged.setLimit(override.getLimit());
+        if (override.getMode() != null) merged.setMode(override.getMode());
+        if (override.getMinInterval() != null) merged.setMinInterval(override.getMinInterval());
+        if (override.getMaxInterval() != null) merged.setMaxInterval(override.getMaxInterval());
+        if (override.getDrainBudget() != null) merged.setDrainBudget(override.getDrainBudget());
+        if (override.getImmediateDispatch() != null) merged.setImmediateDispatch(override.getImmediateDispatch());
+        if (override.getParallelism() > 0) merged.setParallelism(override.getParallelism());
+        if (override.getMaxAttempts() > 0) merged.setMaxAttempts(override.getMaxAttempts());
+        if (override.getRetryBackoff() != null) merged.setRetryBackoff(override.getRetryBackoff());
+        if (override.getMaxRetryBackoff() != null) merged.setMaxRetryBackoff(override.getMaxRetryBackoff());
+        if (override.getPartitioned() != null) merged.setPartitioned(override.getPartitioned());
+        if (override.getPartitions() > 0) merged.setPartitions(override.getPartitions());
+        if (override.getLeaseDuration() != null) merged.setLeaseDuration(override.getLeaseDuration());
+        if (override.getClaim() != null) merged.setClaim(override.getClaim());
+        if (override.getClaimLease() != null) merged.setClaimLease(override.getClaimLease());
+        if (override.getExecutor() != null) merged.setExecutor(override.getExecutor());
+        if (override.getPoolSize() > 0) merged.setPoolSize(override.getPoolSize());
+        if (override.getWorkers() > 0) merged.setWorkers(override.getWorkers());
+        if (override.getLocalDispatch() != null) merged.setLocalDispatch(override.getLocalDispatch());
+        if (override.getLocalQueueCapacity() > 0) merged.setLocalQueueCapacity(override.getLocalQueueCapacity());
+        if (override.getLocalGrace() != null) merged.setLocalGrace(override.getLocalGrace());
+        if (override.getFetch() != null) merged.setFetch(override.getFetch());
+        if (override.getFetchSize() > 0) merged.setFetchSize(override.getFetchSize());
+        if (override.getTransactionManager() != null) merged.setTransactionManager(override.getTransactionManager());
+    }
+
+    private void reapExpiredClaims(String beanName, StreamBoxInput<?> input) {
+        try {
+            int reaped = input.reapExpiredClaims(Instant.now());
+            if (reaped > 0) {
+                log.warn("StreamBox {}: {} expired claims returned to PENDING", beanName, reaped);
+            }
+        } catch (RuntimeException e) {
+            log.error("StreamBox {}: claim reaper failed", beanName, e);
+        }
+    }
+
+    private String nodeId(StreamBoxSchedulersProperties props) {
+        if (props.getNodeId() == null) {
+            String host;
+            try {
+                host = InetAddress.getLocalHost().getHostName();
+            } catch (Exception e) {
+                host = "node";
+            }
+            props.setNodeId(host + "-" + UUID.randomUUID().toString().substring(0, 8));
         }
-        return Duration.parse(value);
+        return props.getNodeId();
     }
 
     private String inferTypeFromBeanNameOrInterface(String beanName, StreamBoxInput<?> input) {
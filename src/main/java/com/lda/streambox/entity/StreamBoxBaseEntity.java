@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.Instant;
 import java.util.UUID;
@@ -26,6 +27,23 @@ public abstract class StreamBoxBaseEntity {
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
 
+    /** Failed handling attempts so far. The DB default lets the column be added to populated tables. */
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private int attempts;
+
+    /** Not polled before this instant, {@code null} when due now. Set after a failed attempt. */
+    @Column(name = "next_attempt_at")
+    private Instant nextAttemptAt;
+
+    /** Claim mode: node handling the row while IN_PROGRESS. */
+    @Column(name = "claimed_by")
+    private String claimedBy;
+
+    /** Claim mode: the row goes back to PENDING if still IN_PROGRESS after this instant. */
+    @Column(name = "lease_until")
+    private Instant leaseUntil;
+
     @PrePersist
     public void prePersist() {
         if (createdAt == null) createdAt = Instant.now();
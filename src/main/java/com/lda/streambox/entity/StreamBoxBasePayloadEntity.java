@@ -1,10 +1,12 @@
 package com.lda.streambox.entity;
 
+import com.lda.streambox.partition.StreamBoxPartitions;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.Length;
 
 @AllArgsConstructor
 @NoArgsConstructor
@@ -15,7 +17,37 @@ public abstract class StreamBoxBasePayloadEntity extends StreamBoxBaseEntity {
     @Column(nullable = false)
     private String type;
 
-    @Column(nullable = false)
+    /** Event JSON, {@code null} when stored compressed in {@link #payloadBin}. */
+    @Column
     private String payload;
+
+    /**
+     * Compressed payload of large events, see {@link #payloadCodec}. Mapped as a long binary
+     * (bytea, longblob, ...) rather than the 255-byte varbinary of a bare {@code byte[]}.
+     */
+    @Column(name = "payload_bin", length = Length.LONG32)
+    private byte[] payloadBin;
+
+    /** Codec of {@link #payloadBin} (e.g. "gzip", "smile"), {@code null} for a text payload. */
+    @Column(name = "payload_codec")
+    private String payloadCodec;
+
+    /**
+     * Optional ordering key: events sharing a key are handled in created_at order,
+     * events with different keys may be handled concurrently.
+     */
+    @Column(name = "partition_key")
+    private String partitionKey;
+
+    /**
+     * Slot (0-255) derived from the partition key, used by the partitioned polling mode.
+     */
+    @Column(name = "partition_no")
+    private Integer partitionNo;
+
+    @PrePersist
+    public void assignPartition() {
+        if (partitionNo == null) partitionNo = StreamBoxPartitions.slotOf(partitionKey);
+    }
 }
 
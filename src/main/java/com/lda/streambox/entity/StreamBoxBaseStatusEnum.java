@@ -2,6 +2,8 @@ package com.lda.streambox.entity;
 
 public enum StreamBoxBaseStatusEnum {
     PENDING,
+    /** Claimed by a node (claim mode) until finished, retried or its lease expires. */
+    IN_PROGRESS,
     FINISHED,
     DEAD,
 }
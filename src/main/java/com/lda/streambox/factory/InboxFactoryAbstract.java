@@ -2,33 +2,107 @@ package com.lda.streambox.factory;
 
 import com.lda.streambox.entity.StreamBoxBasePayloadEntity;
 import com.lda.streambox.json.JsonConverter;
+import com.lda.streambox.model.StreamBoxEnvelope;
 import com.lda.streambox.model.StreamBoxEvent;
 import com.lda.streambox.register.StreamBoxEventRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ClassUtils;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+@Slf4j
 public abstract class InboxFactoryAbstract<T extends StreamBoxBasePayloadEntity, E extends StreamBoxEvent>
         implements InboxFactoryInterface<T, E> {
 
     protected final StreamBoxEventRegistry registry;
     protected final Class<T> entityClass;
+    private final boolean legacyEntityHook;
+
+    // Events decoded at ingestion, keyed by inbox row id, when inbox and projection are co-located.
+    private Map<UUID, E> decodedEvents;
 
 
     protected InboxFactoryAbstract(StreamBoxEventRegistry registry, Class<T> entityClass) {
         this.registry = registry;
         this.entityClass = entityClass;
+        this.legacyEntityHook = ClassUtils.getMethodIfAvailable(getClass(), "createEntity", String.class, JsonConverter.class)
+                .getDeclaringClass() != InboxFactoryAbstract.class;
+        if (legacyEntityHook) {
+            log.warn("{} overrides the deprecated createEntity(String, JsonConverter): "
+                    + "move it to createEntity(StreamBoxEnvelope)", getClass().getName());
+        }
+    }
+
+    /**
+     * {@code true} when a subclass still overrides the deprecated {@link #createEntity(String, JsonConverter)}.
+     */
+    public boolean hasLegacyEntityHook() {
+        return legacyEntityHook;
+    }
+
+    /**
+     * Decode events once at ingestion and hand that instance to {@link #createEvent} instead of
+     * decoding the stored payload again. Keeps at most {@code maxEntries} events, oldest evicted.
+     */
+    public void enableEventReuse(int maxEntries) {
+        this.decodedEvents = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, E> eldest) {
+                return size() > maxEntries;
+            }
+        });
     }
 
     public E createEvent(T entity, JsonConverter jsonConverter) {
-        final var type = entity.getType();
-        final var eventClass = registry.resolve(type);
-        if (eventClass == null) {
-            throw new RuntimeException("Unknown event type: " + type);
+        if (decodedEvents != null && entity.getId() != null) {
+            final E decoded = decodedEvents.remove(entity.getId());
+            if (decoded != null) {
+                return decoded;
+            }
         }
+        return (E) jsonConverter.fromPayload(entity, resolve(entity.getType()));
+    }
 
-        return (E) jsonConverter.fromJson(entity.getPayload(), eventClass);
+    /**
+     * Called once the row built from {@code envelope} is saved. With event reuse enabled, decodes
+     * the payload from the received bytes and keeps it for {@link #createEvent}.
+     */
+    public void onSaved(T entity, StreamBoxEnvelope envelope, JsonConverter jsonConverter) {
+        if (decodedEvents == null || entity.getId() == null || envelope.payload() == null) {
+            return;
+        }
+        decodedEvents.put(entity.getId(), (E) jsonConverter.fromJson(envelope.payload(), resolve(envelope.type())));
     }
 
     @Override
+    @Deprecated
     public T createEntity(String json, JsonConverter jsonConverter) {
-        return jsonConverter.fromJson(json, entityClass);
+        return createEntity(jsonConverter.fromEnvelope(json));
+    }
+
+    /**
+     * Maps a received envelope to a new inbox row. Override to fill your own columns
+     * (e.g. {@code refOutbox} from {@code envelope.id()}).
+     */
+    public T createEntity(StreamBoxEnvelope envelope) {
+        final T entity = BeanUtils.instantiateClass(entityClass);
+        entity.setId(envelope.id());
+        entity.setType(envelope.type());
+        entity.setCreatedAt(envelope.createdAt());
+        entity.setPartitionKey(envelope.partitionKey());
+        entity.setPayload(envelope.payload() == null ? null : envelope.payload().asString());
+        return entity;
+    }
+
+    private Class<? extends StreamBoxEvent> resolve(String type) {
+        final var eventClass = registry.resolve(type);
+        if (eventClass == null) {
+            throw new RuntimeException("Unknown event type: " + type);
+        }
+        return eventClass;
     }
 }
@@ -5,5 +5,12 @@ import com.lda.streambox.json.JsonConverter;
 
 public interface InboxFactoryInterface<T extends StreamBoxBasePayloadEntity, E> {
     E createEvent(T entity, JsonConverter jsonConverter);
+
+    /**
+     * @deprecated messages are read as envelopes, override
+     * {@link InboxFactoryAbstract#createEntity(com.lda.streambox.model.StreamBoxEnvelope)} instead.
+     * An override is still called for {@code String} and {@code byte[]} messages.
+     */
+    @Deprecated
     T createEntity(String json, JsonConverter jsonConverter);
 }
@@ -0,0 +1,31 @@
+package com.lda.streambox.ingest;
+
+import java.util.UUID;
+
+/**
+ * In-memory filter in front of the inbox unique constraint: rejects recently seen source ids
+ * (broker redeliveries) before they cost a failing INSERT. The constraint stays the final guarantee.
+ */
+public interface StreamBoxDeduplicator {
+
+    StreamBoxDeduplicator NONE = new StreamBoxDeduplicator() {
+        @Override
+        public boolean isDuplicate(UUID sourceId) {
+            return false;
+        }
+
+        @Override
+        public void markSeen(UUID sourceId) {
+        }
+    };
+
+    /**
+     * Whether {@code sourceId} was stored recently. False negatives are allowed, false positives are not.
+     */
+    boolean isDuplicate(UUID sourceId);
+
+    /**
+     * Records {@code sourceId} once its row is committed, or rejected by the unique constraint.
+     */
+    void markSeen(UUID sourceId);
+}
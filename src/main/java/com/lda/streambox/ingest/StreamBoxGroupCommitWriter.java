@@ -0,0 +1,186 @@
+package com.lda.streambox.ingest;
+
+import com.lda.streambox.entity.StreamBoxBaseEntity;
+import com.lda.streambox.repository.StreamBoxRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind ingestion: entities are queued and saved in groups with one {@code saveAll}
+ * (one transaction, JDBC batched inserts when {@code hibernate.jdbc.batch_size} is set),
+ * as soon as {@code maxBatchSize} entities are waiting or the oldest one waited {@code maxLatency}.
+ * <p>
+ * {@link #submit(StreamBoxBaseEntity)} blocks while the queue is full and returns a future
+ * completed once the row is committed, so consumers can ack only after commit. Entities still
+ * queued when the flusher stops (closed or interrupted) are failed, never left pending.
+ */
+@Slf4j
+public class StreamBoxGroupCommitWriter<E extends StreamBoxBaseEntity> implements AutoCloseable {
+
+    private static final long IDLE_POLL_MILLIS = 100;
+    private static final long IDLE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(IDLE_POLL_MILLIS);
+
+    private final StreamBoxRepository<E> repository;
+    private final int maxBatchSize;
+    private final long maxLatencyNanos;
+    private final BlockingQueue<Pending<E>> queue;
+    private final Thread flusher;
+    // Held shared by submit, exclusively once the flusher stops: no entity is queued after the last drain.
+    private final ReadWriteLock submitLock = new ReentrantReadWriteLock();
+
+    private volatile boolean running = true;
+
+    private record Pending<E>(E entity, CompletableFuture<E> future) {
+    }
+
+    public StreamBoxGroupCommitWriter(
+            StreamBoxRepository<E> repository,
+            int maxBatchSize,
+            Duration maxLatency,
+            int queueCapacity) {
+        this.repository = repository;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLatencyNanos = maxLatency.toNanos();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.flusher = Thread.ofVirtual().name("streambox-group-commit").start(this::flushLoop);
+    }
+
+    public CompletableFuture<E> submit(E entity) {
+        final Lock lock = submitLock.readLock();
+        lock.lock();
+        try {
+            if (!running) {
+                throw closed();
+            }
+            final Pending<E> pending = new Pending<>(entity, new CompletableFuture<>());
+            try {
+                queue.put(pending);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pending.future().completeExceptionally(e);
+            }
+            return pending.future();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting entities and flushes what is already queued. Returns once the flusher stopped.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushLoop() {
+        final List<Pending<E>> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                final Pending<E> first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                final long deadline = System.nanoTime() + maxLatencyNanos;
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    final long remaining = deadline - System.nanoTime();
+                    // Closing flushes the group now rather than after the full latency.
+                    if (batch.size() >= maxBatchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    final Pending<E> next = queue.poll(Math.min(remaining, IDLE_POLL_NANOS), TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+                batch.forEach(pending -> pending.future().completeExceptionally(e));
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        rejectQueued();
+    }
+
+    /**
+     * Fails what is left in the queue once the flusher stops, including the entities of
+     * {@code submit} calls that passed the running check before it was cleared.
+     */
+    private void rejectQueued() {
+        final boolean interrupted = Thread.interrupted();
+        final Lock lock = submitLock.writeLock();
+        final List<Pending<E>> rejected = new ArrayList<>();
+        // Producers blocked on a full queue hold the read lock: make room until they are through.
+        while (!lock.tryLock()) {
+            queue.drainTo(rejected);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        try {
+            queue.drainTo(rejected);
+        } finally {
+            lock.unlock();
+        }
+        if (!rejected.isEmpty()) {
+            log.warn("StreamBox group commit writer stopped with {} rows not saved", rejected.size());
+            final IllegalStateException closed = closed();
+            rejected.forEach(pending -> pending.future().completeExceptionally(closed));
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static IllegalStateException closed() {
+        return new IllegalStateException("StreamBox group commit writer is closed");
+    }
+
+    private void flush(List<Pending<E>> batch) {
+        final List<E> entities = new ArrayList<>(batch.size());
+        final List<UUID> ids = new ArrayList<>(batch.size());
+        for (Pending<E> pending : batch) {
+            entities.add(pending.entity());
+            ids.add(pending.entity().getId());
+        }
+        try {
+            repository.saveAll(entities);
+            batch.forEach(pending -> pending.future().complete(pending.entity()));
+        } catch (RuntimeException e) {
+            // One bad row (e.g. a duplicate refOutbox) rolls back the whole group:
+            // save one by one so only the faulty entity fails.
+            log.warn("StreamBox group commit of {} rows failed, retrying row by row", batch.size(), e);
+            for (int i = 0; i < batch.size(); i++) {
+                final Pending<E> pending = batch.get(i);
+                pending.entity().setId(ids.get(i));
+                try {
+                    repository.save(pending.entity());
+                    pending.future().complete(pending.entity());
+                } catch (RuntimeException rowFailure) {
+                    pending.future().completeExceptionally(rowFailure);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.lda.streambox.ingest;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, time-windowed cache of recently stored source ids.
+ * <p>
+ * With the pre-filter on, a Bloom filter (two generations rotated every window) answers
+ * "never seen" without taking the cache lock, which is the common case for fresh messages.
+ * A Bloom "maybe" is always confirmed against the exact cache, so nothing new is rejected.
+ */
+public class StreamBoxWindowedDeduplicator implements StreamBoxDeduplicator {
+
+    private static final int HASHES = 7;
+
+    private final int maxEntries;
+    private final long windowNanos;
+    private final Map<UUID, Long> seen;
+    private final boolean preFilter;
+    private final int bloomBits;
+
+    private volatile AtomicLongArray currentBloom;
+    private volatile AtomicLongArray previousBloom;
+    private volatile long bloomRotatedAt;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public StreamBoxWindowedDeduplicator(int maxEntries, Duration window) {
+        this(maxEntries, window, false);
+    }
+
+    public StreamBoxWindowedDeduplicator(int maxEntries, Duration window, boolean preFilter) {
+        this.maxEntries = maxEntries;
+        this.windowNanos = window.toNanos();
+        this.seen = new LinkedHashMap<>(Math.min(maxEntries, 1 << 16), 0.75f, false);
+        this.preFilter = preFilter;
+        // ~1% false positive rate at maxEntries ids per generation.
+        this.bloomBits = preFilter ? Math.max(64, (int) Math.min(Integer.MAX_VALUE - 63L, 10L * maxEntries)) : 0;
+        this.currentBloom = preFilter ? newBloom() : null;
+        this.previousBloom = preFilter ? newBloom() : null;
+        this.bloomRotatedAt = System.nanoTime();
+    }
+
+    @Override
+    public boolean isDuplicate(UUID sourceId) {
+        if (sourceId == null) {
+            return false;
+        }
+        if (preFilter) {
+            rotateBloomIfDue();
+            if (!mightContain(currentBloom, sourceId) && !mightContain(previousBloom, sourceId)) {
+                misses.increment();
+                return false;
+            }
+        }
+        final long now = System.nanoTime();
+        final boolean duplicate;
+        synchronized (seen) {
+            final Long expiresAt = seen.get(sourceId);
+            duplicate = expiresAt != null && expiresAt - now > 0;
+        }
+        if (duplicate) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return duplicate;
+    }
+
+    @Override
+    public void markSeen(UUID sourceId) {
+        if (sourceId == null) {
+            return;
+        }
+        if (preFilter) {
+            rotateBloomIfDue();
+            put(currentBloom, sourceId);
+        }
+        final long now = System.nanoTime();
+        synchronized (seen) {
+            seen.remove(sourceId);
+            seen.put(sourceId, now + windowNanos);
+            // Insertion order is expiry order: drop expired heads, then enforce the bound.
+            var iterator = seen.values().iterator();
+            while (iterator.hasNext()) {
+                long expiresAt = iterator.next();
+                if (seen.size() > maxEntries || expiresAt - now <= 0) {
+                    iterator.remove();
+                } else {
+                    break;
+                }
+            }
+        }
+    }
+
+    /** Lookups answered "duplicate". */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /** Lookups answered "new", by the pre-filter or the cache. */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        synchronized (seen) {
+            return seen.size();
+        }
+    }
+
+    private AtomicLongArray newBloom() {
+        return new AtomicLongArray((bloomBits + 63) >>> 6);
+    }
+
+    private void rotateBloomIfDue() {
+        final long rotatedAt = bloomRotatedAt;
+        if (System.nanoTime() - rotatedAt < windowNanos) {
+            return;
+        }
+        synchronized (this) {
+            if (bloomRotatedAt != rotatedAt) {
+                return;
+            }
+            previousBloom = currentBloom;
+            currentBloom = newBloom();
+            bloomRotatedAt = System.nanoTime();
+        }
+    }
+
+    private boolean mightContain(AtomicLongArray bloom, UUID id) {
+        final long h1 = mix(id.getMostSignificantBits() ^ id.getLeastSignificantBits());
+        final long h2 = mix(id.getLeastSignificantBits() + 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < HASHES; i++) {
+            final int bit = (int) Long.remainderUnsigned(h1 + i * h2, bloomBits);
+            if ((bloom.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void put(AtomicLongArray bloom, UUID id) {
+        final long h1 = mix(id.getMostSignificantBits() ^ id.getLeastSignificantBits());
+        final long h2 = mix(id.getLeastSignificantBits() + 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < HASHES; i++) {
+            final int bit = (int) Long.remainderUnsigned(h1 + i * h2, bloomBits);
+            final long mask = 1L << bit;
+            bloom.getAndUpdate(bit >>> 6, word -> word | mask);
+        }
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
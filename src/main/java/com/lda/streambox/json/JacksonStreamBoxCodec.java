@@ -0,0 +1,88 @@
+package com.lda.streambox.json;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Jackson codec keeping one precomputed {@link ObjectReader}/{@link ObjectWriter} per type.
+ */
+public class JacksonStreamBoxCodec implements StreamBoxCodec {
+
+    private final String name;
+    private final ObjectMapper objectMapper;
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    public JacksonStreamBoxCodec(String name, ObjectMapper objectMapper) {
+        this.name = name;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public void register(Class<?> type) {
+        reader(type);
+        writer(type);
+    }
+
+    public ObjectReader reader(Class<?> type) {
+        final ObjectReader reader = readers.get(type);
+        return reader != null ? reader : readers.computeIfAbsent(type, objectMapper::readerFor);
+    }
+
+    public ObjectWriter writer(Class<?> type) {
+        final ObjectWriter writer = writers.get(type);
+        return writer != null ? writer : writers.computeIfAbsent(type, objectMapper::writerFor);
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        try {
+            return writerOf(value).writeValueAsBytes(value);
+        } catch (JacksonException e) {
+            throw new JsonConverterToJsonException("Failed to serialize object to " + name, e);
+        }
+    }
+
+    @Override
+    public void encode(Object value, OutputStream out) {
+        try {
+            writerOf(value).writeValue(out, value);
+        } catch (JacksonException e) {
+            throw new JsonConverterToJsonException("Failed to serialize object to " + name, e);
+        }
+    }
+
+    @Override
+    public <T> T decode(byte[] bytes, Class<T> type) {
+        try {
+            return reader(type).readValue(bytes);
+        } catch (JacksonException e) {
+            throw new JsonConverterFromJsonException("Failed to deserialize " + name + " to " + type.getSimpleName(), e);
+        }
+    }
+
+    @Override
+    public <T> T decode(InputStream in, Class<T> type) {
+        try {
+            return reader(type).readValue(in);
+        } catch (JacksonException e) {
+            throw new JsonConverterFromJsonException("Failed to deserialize " + name + " to " + type.getSimpleName(), e);
+        }
+    }
+
+    private ObjectWriter writerOf(Object value) {
+        return value == null ? objectMapper.writer() : writer(value.getClass());
+    }
+}
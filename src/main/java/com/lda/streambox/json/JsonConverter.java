@@ -1,26 +1,186 @@
 package com.lda.streambox.json;
 
-import lombok.RequiredArgsConstructor;
+import com.lda.streambox.entity.StreamBoxBasePayloadEntity;
+import com.lda.streambox.model.StreamBoxEnvelope;
+import com.lda.streambox.model.StreamBoxRawPayload;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.ObjectMapper;
 
-@RequiredArgsConstructor
+import java.io.InputStream;
+import java.io.OutputStream;
+
 public class JsonConverter {
 
+    public static final String JSON = "json";
+
     private final ObjectMapper objectMapper;
+    private final JacksonStreamBoxCodec jsonCodec;
+    private final StreamBoxCodec payloadCodec;
+    private final StreamBoxEnvelopeCodec envelopeCodec;
+    private StreamBoxPayloadCompressor payloadCompressor;
+
+    public JsonConverter(ObjectMapper objectMapper) {
+        this(objectMapper, null);
+    }
+
+    /**
+     * @param payloadCodec format of the stored payloads, JSON text when {@code null} or named "json".
+     *                     Binary codecs store in {@code payload_bin}, with their name as codec marker.
+     */
+    public JsonConverter(ObjectMapper objectMapper, StreamBoxCodec payloadCodec) {
+        this.objectMapper = objectMapper;
+        this.jsonCodec = new JacksonStreamBoxCodec(JSON, objectMapper);
+        this.payloadCodec = payloadCodec == null || JSON.equals(payloadCodec.name()) ? jsonCodec : payloadCodec;
+        this.envelopeCodec = new StreamBoxEnvelopeCodec(objectMapper, this::payloadOf);
+    }
+
+    /**
+     * Stores large payloads compressed ({@code null} disables it, stored rows stay readable).
+     */
+    public void setPayloadCompressor(StreamBoxPayloadCompressor payloadCompressor) {
+        this.payloadCompressor = payloadCompressor;
+    }
+
+    /**
+     * Puts the row's payload in its stored form before it is saved: encoded with the binary
+     * payload codec when there is one, otherwise compressed when compression is enabled.
+     */
+    public void compress(StreamBoxBasePayloadEntity entity) {
+        if (payloadCodec != jsonCodec) {
+            encode(entity);
+        } else if (payloadCompressor != null) {
+            payloadCompressor.compress(entity);
+        }
+    }
+
+    private void encode(StreamBoxBasePayloadEntity entity) {
+        if (entity.getPayload() == null || entity.getPayloadCodec() != null) {
+            return;
+        }
+        final JsonNode tree;
+        try {
+            tree = objectMapper.readTree(entity.getPayload());
+        } catch (JacksonException e) {
+            throw new JsonConverterFromJsonException("Failed to read payload JSON", e);
+        }
+        entity.setPayloadBin(payloadCodec.encode(tree));
+        entity.setPayloadCodec(payloadCodec.name());
+        entity.setPayload(null);
+    }
+
+    /**
+     * Payload JSON of a row, decoded only now for compressed or binary rows.
+     */
+    public String payloadOf(StreamBoxBasePayloadEntity entity) {
+        final String codec = entity.getPayloadCodec();
+        if (codec == null) {
+            return entity.getPayload();
+        }
+        if (codec.equals(payloadCodec.name())) {
+            return toJson(payloadCodec.decode(entity.getPayloadBin(), JsonNode.class));
+        }
+        return payloadCompressor != null
+                ? payloadCompressor.payloadOf(entity)
+                : StreamBoxPayloadCompressor.decompress(codec, entity.getPayloadBin());
+    }
+
+    /**
+     * Event stored in a row, decoded straight from {@code payload_bin} when the row was written
+     * by the binary payload codec.
+     */
+    public <T> T fromPayload(StreamBoxBasePayloadEntity entity, Class<T> type) {
+        if (entity.getPayloadCodec() != null && entity.getPayloadCodec().equals(payloadCodec.name())) {
+            return payloadCodec.decode(entity.getPayloadBin(), type);
+        }
+        return fromJson(payloadOf(entity), type);
+    }
+
+    /**
+     * Precomputes readers/writers for a type, typically every event of the registry.
+     */
+    public void register(Class<?> type) {
+        jsonCodec.register(type);
+        if (payloadCodec != jsonCodec) {
+            payloadCodec.register(type);
+        }
+    }
 
     public String toJson(Object value) {
         try {
-            return objectMapper.writeValueAsString(value);
-        } catch (Exception e) {
+            return value == null
+                    ? objectMapper.writeValueAsString(null)
+                    : jsonCodec.writer(value.getClass()).writeValueAsString(value);
+        } catch (JacksonException e) {
             throw new JsonConverterToJsonException("Failed to serialize object to JSON", e);
         }
     }
 
     public <T> T fromJson(String value, Class<T> type) {
         try {
-            return objectMapper.readValue(value, type);
-        } catch (Exception e) {
+            return jsonCodec.reader(type).readValue(value);
+        } catch (JacksonException e) {
             throw new JsonConverterFromJsonException("Failed to deserialize JSON to " + type.getSimpleName(), e);
         }
     }
+
+    public byte[] toJsonBytes(Object value) {
+        return jsonCodec.encode(value);
+    }
+
+    public void toJson(Object value, OutputStream out) {
+        jsonCodec.encode(value, out);
+    }
+
+    public <T> T fromJson(byte[] value, Class<T> type) {
+        return jsonCodec.decode(value, type);
+    }
+
+    public <T> T fromJson(InputStream value, Class<T> type) {
+        return jsonCodec.decode(value, type);
+    }
+
+    /**
+     * Outgoing message for a row: metadata plus the stored payload JSON, written raw.
+     */
+    public String toEnvelope(StreamBoxBasePayloadEntity entity) {
+        return envelopeCodec.write(entity);
+    }
+
+    public void toEnvelope(StreamBoxBasePayloadEntity entity, OutputStream out) {
+        envelopeCodec.write(entity, out);
+    }
+
+    public StreamBoxEnvelope fromEnvelope(String json) {
+        return envelopeCodec.read(json);
+    }
+
+    public StreamBoxEnvelope fromEnvelope(byte[] json) {
+        return envelopeCodec.read(json);
+    }
+
+    /**
+     * Decodes an envelope payload straight from the received bytes when it has them.
+     */
+    public <T> T fromJson(StreamBoxRawPayload payload, Class<T> type) {
+        if (!payload.hasBytes()) {
+            return fromJson(payload.asString(), type);
+        }
+        try {
+            return jsonCodec.reader(type).readValue(payload.bytes(), payload.offset(), payload.length());
+        } catch (JacksonException e) {
+            throw new JsonConverterFromJsonException("Failed to deserialize JSON to " + type.getSimpleName(), e);
+        }
+    }
+
+    public StreamBoxCodec jsonCodec() {
+        return jsonCodec;
+    }
+
+    /**
+     * Codec of the stored payloads, {@link #jsonCodec()} unless a binary one was configured.
+     */
+    public StreamBoxCodec payloadCodec() {
+        return payloadCodec;
+    }
 }
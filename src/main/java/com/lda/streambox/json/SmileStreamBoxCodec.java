@@ -0,0 +1,19 @@
+package com.lda.streambox.json;
+
+import tools.jackson.dataformat.smile.SmileMapper;
+
+/**
+ * Compact binary codec (Jackson Smile), requires {@code jackson-dataformat-smile} on the classpath.
+ */
+public class SmileStreamBoxCodec extends JacksonStreamBoxCodec {
+
+    public static final String SMILE = "smile";
+
+    public SmileStreamBoxCodec() {
+        this(SmileMapper.builder().build());
+    }
+
+    public SmileStreamBoxCodec(SmileMapper smileMapper) {
+        super(SMILE, smileMapper);
+    }
+}
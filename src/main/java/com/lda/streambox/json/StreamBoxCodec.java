@@ -0,0 +1,30 @@
+package com.lda.streambox.json;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Byte-oriented serialization SPI behind {@link JsonConverter}.
+ */
+public interface StreamBoxCodec {
+
+    /**
+     * Marker identifying the format (e.g. "json", "smile"), stored in {@code payload_codec}
+     * next to binary payloads.
+     */
+    String name();
+
+    byte[] encode(Object value);
+
+    void encode(Object value, OutputStream out);
+
+    <T> T decode(byte[] bytes, Class<T> type);
+
+    <T> T decode(InputStream in, Class<T> type);
+
+    /**
+     * Prepares whatever the codec caches per type, so the first event does not pay for it.
+     */
+    default void register(Class<?> type) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.lda.streambox.json;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Data
+@ConfigurationProperties(prefix = "streambox.compression")
+@Validated
+public class StreamBoxCompressionProperties {
+
+    /** Store large payloads gzip compressed in payload_bin (needs the payload_bin / payload_codec columns). */
+    private boolean enabled = false;
+
+    /**
+     * Payloads of at least this many bytes (UTF-8) are compressed, smaller ones stay text.
+     */
+    private int threshold = 4096;
+}
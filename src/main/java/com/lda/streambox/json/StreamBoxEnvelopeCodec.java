@@ -0,0 +1,177 @@
+package com.lda.streambox.json;
+
+import com.lda.streambox.entity.StreamBoxBasePayloadEntity;
+import com.lda.streambox.model.StreamBoxEnvelope;
+import com.lda.streambox.model.StreamBoxRawPayload;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Streams envelopes without going through the entity: the stored {@code payload} JSON is
+ * written raw on the way out, and sliced out of the message on the way in.
+ * <p>
+ * The reader also accepts the former wire format (the serialized entity, payload as a
+ * JSON string), recognized by its {@code status} property, and skips unknown properties.
+ */
+public class StreamBoxEnvelopeCodec {
+
+    private static final String ID = "id";
+    private static final String TYPE = "type";
+    private static final String CREATED_AT = "createdAt";
+    private static final String PARTITION_KEY = "partitionKey";
+    private static final String PAYLOAD = "payload";
+    // Only written by the former format (the serialized entity).
+    private static final String STATUS = "status";
+
+    private final ObjectMapper objectMapper;
+    private final Function<StreamBoxBasePayloadEntity, String> payloads;
+
+    public StreamBoxEnvelopeCodec(ObjectMapper objectMapper) {
+        this(objectMapper, StreamBoxBasePayloadEntity::getPayload);
+    }
+
+    /**
+     * @param payloads reads the payload JSON of a row, e.g. inflating compressed ones
+     */
+    public StreamBoxEnvelopeCodec(ObjectMapper objectMapper, Function<StreamBoxBasePayloadEntity, String> payloads) {
+        this.objectMapper = objectMapper;
+        this.payloads = payloads;
+    }
+
+    public String write(StreamBoxBasePayloadEntity entity) {
+        final String payload = payloads.apply(entity);
+        final StringWriter out = new StringWriter((payload == null ? 0 : payload.length()) + 160);
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            write(generator, entity, payload);
+        } catch (JacksonException e) {
+            throw new JsonConverterToJsonException("Failed to write StreamBox envelope", e);
+        }
+        return out.toString();
+    }
+
+    public void write(StreamBoxBasePayloadEntity entity, OutputStream out) {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            write(generator, entity, payloads.apply(entity));
+        } catch (JacksonException e) {
+            throw new JsonConverterToJsonException("Failed to write StreamBox envelope", e);
+        }
+    }
+
+    private void write(JsonGenerator generator, StreamBoxBasePayloadEntity entity, String payload) {
+        generator.writeStartObject();
+        generator.writeStringProperty(ID, entity.getId() == null ? null : entity.getId().toString());
+        generator.writeStringProperty(TYPE, entity.getType());
+        if (entity.getCreatedAt() != null) {
+            generator.writeStringProperty(CREATED_AT, entity.getCreatedAt().toString());
+        }
+        if (entity.getPartitionKey() != null) {
+            generator.writeStringProperty(PARTITION_KEY, entity.getPartitionKey());
+        }
+        generator.writeName(PAYLOAD);
+        if (payload == null) {
+            // Read back as a null payload, like the former format did.
+            generator.writeNull();
+        } else {
+            generator.writeRawValue(payload);
+        }
+        generator.writeEndObject();
+    }
+
+    public StreamBoxEnvelope read(String json) {
+        try (JsonParser parser = objectMapper.createParser(json)) {
+            return read(parser, false, (start, end) -> StreamBoxRawPayload.of(json.substring(start, end)));
+        } catch (JacksonException | IllegalArgumentException e) {
+            throw new JsonConverterFromJsonException("Failed to read StreamBox envelope", e);
+        }
+    }
+
+    /**
+     * Single pass over the received bytes: the payload is kept as a slice of {@code json},
+     * nothing is copied or decoded until someone asks for it.
+     */
+    public StreamBoxEnvelope read(byte[] json) {
+        try (JsonParser parser = objectMapper.createParser(json)) {
+            return read(parser, true, (start, end) -> StreamBoxRawPayload.of(json, start, end - start));
+        } catch (JacksonException | IllegalArgumentException e) {
+            throw new JsonConverterFromJsonException("Failed to read StreamBox envelope", e);
+        }
+    }
+
+    private interface PayloadSlicer {
+        StreamBoxRawPayload slice(int start, int end);
+    }
+
+    private StreamBoxEnvelope read(JsonParser parser, boolean byteInput, PayloadSlicer slicer) {
+        final var envelope = StreamBoxEnvelope.builder();
+        expect(parser.nextToken(), JsonToken.START_OBJECT);
+        boolean formerFormat = false;
+        String stringPayload = null;
+        String name;
+        while ((name = parser.nextName()) != null) {
+            final JsonToken token = parser.nextToken();
+            switch (name) {
+                case ID -> envelope.id(token == JsonToken.VALUE_NULL ? null : UUID.fromString(parser.getString()));
+                case TYPE -> envelope.type(parser.getValueAsString());
+                case CREATED_AT -> envelope.createdAt(readInstant(parser, token));
+                case PARTITION_KEY -> envelope.partitionKey(parser.getValueAsString());
+                case STATUS -> formerFormat = true;
+                case PAYLOAD -> {
+                    if (token == JsonToken.VALUE_STRING) {
+                        stringPayload = parser.getString();
+                    } else {
+                        envelope.payload(readRawPayload(parser, token, byteInput, slicer));
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        if (stringPayload != null) {
+            // Former format: the payload JSON embedded as an escaped string. Otherwise the
+            // event itself serializes to a JSON string, kept quoted.
+            envelope.payload(StreamBoxRawPayload.of(formerFormat ? stringPayload : objectMapper.writeValueAsString(stringPayload)));
+        }
+        return envelope.build();
+    }
+
+    private StreamBoxRawPayload readRawPayload(JsonParser parser, JsonToken token, boolean byteInput, PayloadSlicer slicer) {
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            final var startLocation = parser.currentTokenLocation();
+            final int start = (int) (byteInput ? startLocation.getByteOffset() : startLocation.getCharOffset());
+            parser.skipChildren();
+            final var endLocation = parser.currentLocation();
+            final int end = (int) (byteInput ? endLocation.getByteOffset() : endLocation.getCharOffset());
+            return slicer.slice(start, end);
+        }
+        return token == JsonToken.VALUE_NULL ? null : StreamBoxRawPayload.of(parser.getValueAsString());
+    }
+
+    private Instant readInstant(JsonParser parser, JsonToken token) {
+        return switch (token) {
+            case VALUE_STRING -> Instant.parse(parser.getString());
+            // Timestamps written by Jackson as decimal seconds or epoch millis.
+            case VALUE_NUMBER_FLOAT -> {
+                BigDecimal seconds = parser.getDecimalValue();
+                yield Instant.ofEpochSecond(seconds.longValue(),
+                        seconds.remainder(BigDecimal.ONE).movePointRight(9).intValue());
+            }
+            case VALUE_NUMBER_INT -> Instant.ofEpochMilli(parser.getLongValue());
+            default -> null;
+        };
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) {
+        if (actual != expected) {
+            throw new IllegalArgumentException("Expected " + expected + " but got " + actual);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.lda.streambox.json;
+
+import com.lda.streambox.entity.StreamBoxBasePayloadEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Moves large payloads to the binary {@code payload_bin} column, gzip compressed, with the codec
+ * marker in {@code payload_codec}. Rows under the threshold, or that would not shrink, keep
+ * their text payload. Compressed rows are only inflated when the payload is read.
+ */
+public class StreamBoxPayloadCompressor {
+
+    public static final String GZIP = "gzip";
+
+    /** Receives the compression ratio and codec time, e.g. for metrics. */
+    public interface Observer {
+
+        Observer NOOP = new Observer() {
+        };
+
+        default void onCompress(int rawBytes, int storedBytes, long nanos) {
+        }
+
+        default void onDecompress(int storedBytes, long nanos) {
+        }
+    }
+
+    private final int threshold;
+    private Observer observer = Observer.NOOP;
+
+    /**
+     * @param threshold payloads of at least this many bytes (UTF-8) are compressed
+     */
+    public StreamBoxPayloadCompressor(int threshold) {
+        this.threshold = threshold;
+    }
+
+    public void setObserver(Observer observer) {
+        this.observer = observer;
+    }
+
+    /**
+     * Compresses the entity's text payload in place when it is large enough and shrinks.
+     */
+    public void compress(StreamBoxBasePayloadEntity entity) {
+        final String payload = entity.getPayload();
+        if (payload == null || entity.getPayloadCodec() != null || payload.length() * 3 < threshold) {
+            return;
+        }
+        final long start = System.nanoTime();
+        final byte[] raw = payload.getBytes(StandardCharsets.UTF_8);
+        if (raw.length < threshold) {
+            return;
+        }
+        final byte[] compressed = gzip(raw);
+        observer.onCompress(raw.length, Math.min(compressed.length, raw.length), System.nanoTime() - start);
+        if (compressed.length >= raw.length) {
+            return;
+        }
+        entity.setPayloadBin(compressed);
+        entity.setPayloadCodec(GZIP);
+        entity.setPayload(null);
+    }
+
+    /**
+     * Text payload of the entity, inflated from the binary column for compressed rows.
+     */
+    public String payloadOf(StreamBoxBasePayloadEntity entity) {
+        if (entity.getPayloadCodec() == null) {
+            return entity.getPayload();
+        }
+        final long start = System.nanoTime();
+        final String payload = decompress(entity.getPayloadCodec(), entity.getPayloadBin());
+        observer.onDecompress(entity.getPayloadBin().length, System.nanoTime() - start);
+        return payload;
+    }
+
+    /**
+     * Decodes a stored binary payload, whether or not compression is still enabled.
+     */
+    public static String decompress(String codec, byte[] bytes) {
+        if (!GZIP.equals(codec)) {
+            throw new IllegalArgumentException("Unknown StreamBox payload codec: " + codec);
+        }
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to inflate StreamBox payload", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] raw) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(raw);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compress StreamBox payload", e);
+        }
+        return out.toByteArray();
+    }
+}
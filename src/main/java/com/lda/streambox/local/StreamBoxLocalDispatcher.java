@@ -0,0 +1,129 @@
+package com.lda.streambox.local;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Fast path of the hybrid mode: committed outbox rows are handed over in memory through a
+ * bounded lock-free queue and handled in FIFO order on one thread. Handled ids are marked
+ * finished in batches; the database stays the durability log, rows the fast path misses
+ * (queue full, handler failure, crash) are picked up by the poller.
+ */
+@Slf4j
+public class StreamBoxLocalDispatcher implements AutoCloseable {
+
+    private static final int FINISH_BATCH = 100;
+    private static final Duration FINISH_INTERVAL = Duration.ofMillis(50);
+
+    private final String name;
+    private final int capacity;
+    private final Consumer<Collection<UUID>> finisher;
+    private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final List<UUID> finished = new ArrayList<>();
+
+    private volatile boolean running = false;
+    private Thread thread;
+    private long lastFlush = System.nanoTime();
+
+    /**
+     * @param finisher marks a batch of handled row ids finished, in its own transaction
+     */
+    public StreamBoxLocalDispatcher(String name, int capacity, Consumer<Collection<UUID>> finisher) {
+        this.name = name;
+        this.capacity = Math.max(1, capacity);
+        this.finisher = finisher;
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = Thread.ofPlatform().daemon().name("streambox-local-" + name).start(this::loop);
+    }
+
+    /**
+     * Queues the handling of a committed row. Returns {@code false} when stopped or full,
+     * the row is then left to the poller.
+     */
+    public boolean offer(UUID id, Runnable handling) {
+        if (!running) return false;
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            return false;
+        }
+        queue.offer(new Pending(id, handling));
+        LockSupport.unpark(thread);
+        return true;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops accepting rows, handles the queued ones and flushes the last finished ids.
+     */
+    @Override
+    public void close() {
+        final Thread current;
+        synchronized (this) {
+            if (!running) return;
+            running = false;
+            current = thread;
+        }
+        LockSupport.unpark(current);
+        try {
+            current.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void loop() {
+        while (running || !queue.isEmpty()) {
+            final Pending pending = queue.poll();
+            if (pending == null) {
+                flush();
+                LockSupport.parkNanos(this, FINISH_INTERVAL.toNanos());
+                continue;
+            }
+            size.decrementAndGet();
+            try {
+                pending.handling().run();
+                finished.add(pending.id());
+            } catch (RuntimeException e) {
+                log.warn("StreamBox {}: local handling of {} failed, left to the poller", name, pending.id(), e);
+            }
+            if (finished.size() >= FINISH_BATCH || System.nanoTime() - lastFlush >= FINISH_INTERVAL.toNanos()) {
+                flush();
+            }
+        }
+        flush();
+    }
+
+    private void flush() {
+        lastFlush = System.nanoTime();
+        if (finished.isEmpty()) return;
+        final List<UUID> ids = List.copyOf(finished);
+        finished.clear();
+        try {
+            finisher.accept(ids);
+        } catch (RuntimeException e) {
+            // The rows are redelivered by the poller once their grace period ends.
+            log.error("StreamBox {}: could not finish {} locally handled rows", name, ids.size(), e);
+        }
+    }
+
+    private record Pending(UUID id, Runnable handling) {
+    }
+}
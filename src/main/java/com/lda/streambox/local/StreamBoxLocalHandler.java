@@ -0,0 +1,16 @@
+package com.lda.streambox.local;
+
+import com.lda.streambox.model.StreamBoxEvent;
+
+import java.util.UUID;
+
+/**
+ * In-process consumer of the events added to a co-located outbox (hybrid mode). Called on the
+ * dispatcher thread once the outbox row is committed; {@code outboxId} is the row id, usable
+ * for deduplication since the poller may still deliver the row after a crash.
+ */
+@FunctionalInterface
+public interface StreamBoxLocalHandler<E extends StreamBoxEvent> {
+
+    void handle(UUID outboxId, E event);
+}
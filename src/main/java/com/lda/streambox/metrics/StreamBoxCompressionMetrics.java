@@ -0,0 +1,46 @@
+package com.lda.streambox.metrics;
+
+import com.lda.streambox.json.StreamBoxPayloadCompressor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters of the payload compression: stored / raw size ratio and codec time.
+ */
+public class StreamBoxCompressionMetrics implements StreamBoxPayloadCompressor.Observer {
+
+    private final DistributionSummary ratio;
+    private final Timer compressTimer;
+    private final Timer decompressTimer;
+
+    public StreamBoxCompressionMetrics(MeterRegistry registry) {
+        this.ratio = DistributionSummary.builder("streambox.payload.compression.ratio")
+                .description("Stored / raw payload size of compressed candidates")
+                .register(registry);
+        this.compressTimer = codecTimer(registry, "compress");
+        this.decompressTimer = codecTimer(registry, "decompress");
+    }
+
+    @Override
+    public void onCompress(int rawBytes, int storedBytes, long nanos) {
+        compressTimer.record(nanos, TimeUnit.NANOSECONDS);
+        if (rawBytes > 0) {
+            ratio.record((double) storedBytes / rawBytes);
+        }
+    }
+
+    @Override
+    public void onDecompress(int storedBytes, long nanos) {
+        decompressTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer codecTimer(MeterRegistry registry, String operation) {
+        return Timer.builder("streambox.payload.codec")
+                .description("Payload compression time")
+                .tag("operation", operation)
+                .register(registry);
+    }
+}
@@ -0,0 +1,156 @@
+package com.lda.streambox.metrics;
+
+import com.lda.streambox.port.StreamBoxInput;
+import com.lda.streambox.scheduler.StreamBoxRetentionJob;
+import com.lda.streambox.scheduler.StreamBoxSchedulerObserver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters of one scheduler, tagged by bean name and type. Meters are resolved once,
+ * recording does not allocate. Backlog and lag gauges query the table when scraped.
+ */
+@Slf4j
+public class StreamBoxMetrics implements StreamBoxSchedulerObserver {
+
+    private final Timer lockTimer;
+    private final Timer handleTimer;
+    private final DistributionSummary handleSize;
+    private final Timer finishTimer;
+    private final DistributionSummary batchFill;
+    private final Counter succeeded;
+    private final Counter failed;
+    private final Counter dead;
+
+    public StreamBoxMetrics(MeterRegistry registry, String name, String type, StreamBoxInput<?> input) {
+        final Tags tags = Tags.of("name", name, "type", type);
+
+        Gauge.builder("streambox.backlog", input, StreamBoxMetrics::backlog)
+                .description("PENDING rows")
+                .tags(tags)
+                .register(registry);
+        TimeGauge.builder("streambox.lag", input, TimeUnit.MILLISECONDS, StreamBoxMetrics::lagMillis)
+                .description("Age of the oldest PENDING row")
+                .tags(tags)
+                .register(registry);
+
+        this.lockTimer = Timer.builder("streambox.lock")
+                .description("lockNextBatch duration")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry);
+        this.handleTimer = Timer.builder("streambox.handle")
+                .description("Handling time per call (a batch, a key lane or a row)")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry);
+        this.handleSize = DistributionSummary.builder("streambox.handle.size")
+                .description("Rows per handling call")
+                .tags(tags)
+                .register(registry);
+        this.finishTimer = Timer.builder("streambox.finish")
+                .description("finishAll duration per batch")
+                .tags(tags)
+                .register(registry);
+        this.batchFill = DistributionSummary.builder("streambox.batch.fill")
+                .description("Locked rows / limit")
+                .tags(tags)
+                .register(registry);
+        this.succeeded = eventCounter(registry, tags, "success");
+        this.failed = eventCounter(registry, tags, "failure");
+        this.dead = eventCounter(registry, tags, "dead");
+    }
+
+    public static StreamBoxSchedulerObserver.Factory factory(MeterRegistry registry) {
+        return new StreamBoxSchedulerObserver.Factory() {
+            @Override
+            public StreamBoxSchedulerObserver create(String name, String type, StreamBoxInput<?> input) {
+                return new StreamBoxMetrics(registry, name, type, input);
+            }
+
+            @Override
+            public void onRetention(StreamBoxRetentionJob retention) {
+                bindRetention(registry, retention);
+            }
+        };
+    }
+
+    /**
+     * Rows deleted by the last completed retention run, across all tables.
+     */
+    public static void bindRetention(MeterRegistry registry, StreamBoxRetentionJob retention) {
+        Gauge.builder("streambox.retention.reclaimed", retention, StreamBoxRetentionJob::getLastRunReclaimed)
+                .description("Rows deleted by the last retention run")
+                .register(registry);
+    }
+
+    @Override
+    public void onLock(long nanos, int size, int limit) {
+        lockTimer.record(nanos, TimeUnit.NANOSECONDS);
+        if (limit > 0) {
+            batchFill.record((double) size / limit);
+        }
+    }
+
+    @Override
+    public void onHandle(long nanos, int count) {
+        // One sample per call: splitting it evenly would invent a per-event distribution.
+        if (count <= 0) return;
+        handleTimer.record(nanos, TimeUnit.NANOSECONDS);
+        handleSize.record(count);
+    }
+
+    @Override
+    public void onFinish(long nanos, int count) {
+        if (count <= 0) return;
+        finishTimer.record(nanos, TimeUnit.NANOSECONDS);
+        succeeded.increment(count);
+    }
+
+    @Override
+    public void onFailure(int count) {
+        failed.increment(count);
+    }
+
+    @Override
+    public void onDead(int count) {
+        dead.increment(count);
+    }
+
+    private static Counter eventCounter(MeterRegistry registry, Tags tags, String outcome) {
+        return Counter.builder("streambox.events")
+                .description("Events by outcome")
+                .tags(tags)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static double backlog(StreamBoxInput<?> input) {
+        try {
+            return input.countPending();
+        } catch (RuntimeException e) {
+            log.debug("StreamBox backlog gauge failed", e);
+            return Double.NaN;
+        }
+    }
+
+    private static double lagMillis(StreamBoxInput<?> input) {
+        try {
+            final Instant oldest = input.oldestPendingCreatedAt();
+            return oldest == null ? 0 : Math.max(0, Duration.between(oldest, Instant.now()).toMillis());
+        } catch (RuntimeException e) {
+            log.debug("StreamBox lag gauge failed", e);
+            return Double.NaN;
+        }
+    }
+}
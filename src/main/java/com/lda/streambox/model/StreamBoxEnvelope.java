@@ -0,0 +1,20 @@
+package com.lda.streambox.model;
+
+import lombok.Builder;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * What travels between an outbox and an inbox: row metadata plus the raw JSON payload,
+ * embedded as-is in the message (no second escaping).
+ */
+@Builder
+public record StreamBoxEnvelope(
+        UUID id,
+        String type,
+        Instant createdAt,
+        String partitionKey,
+        StreamBoxRawPayload payload
+) {
+}
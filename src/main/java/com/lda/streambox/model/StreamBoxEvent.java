@@ -1,4 +1,12 @@
 package com.lda.streambox.model;
 
 public interface StreamBoxEvent {
+
+    /**
+     * Ordering key copied to the outbox row (e.g. the aggregate id).
+     * Events sharing a key keep their order when batches are handled concurrently.
+     */
+    default String partitionKey() {
+        return null;
+    }
 }
@@ -0,0 +1,59 @@
+package com.lda.streambox.model;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Raw JSON payload of an envelope, kept as the slice of the received message it was read from.
+ * The String form is only built when asked for.
+ */
+public final class StreamBoxRawPayload {
+
+    private final byte[] bytes;
+    private final int offset;
+    private final int length;
+    private String text;
+
+    private StreamBoxRawPayload(byte[] bytes, int offset, int length, String text) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+        this.text = text;
+    }
+
+    public static StreamBoxRawPayload of(String text) {
+        return new StreamBoxRawPayload(null, 0, 0, text);
+    }
+
+    public static StreamBoxRawPayload of(byte[] bytes, int offset, int length) {
+        return new StreamBoxRawPayload(bytes, offset, length, null);
+    }
+
+    /** Whether the payload is backed by UTF-8 bytes (decode with {@link #bytes()}/{@link #offset()}/{@link #length()}). */
+    public boolean hasBytes() {
+        return bytes != null;
+    }
+
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    public int offset() {
+        return offset;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public String asString() {
+        if (text == null) {
+            text = new String(bytes, offset, length, StandardCharsets.UTF_8);
+        }
+        return text;
+    }
+
+    @Override
+    public String toString() {
+        return asString();
+    }
+}
@@ -0,0 +1,182 @@
+package com.lda.streambox.partition;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Leases the buckets of one queue (StreamBox table) for this node, through two small tables:
+ * <pre>
+ * streambox_lease (queue, bucket, owner, expires_at)   -- one row per bucket
+ * streambox_node  (queue, node_id, heartbeat_at)       -- live nodes, for the fair share
+ * </pre>
+ * Each {@link #renew()} heartbeats, renews owned leases, gives back buckets above the fair share
+ * ({@code ceil(buckets / live nodes)}) and takes free or expired ones below it. A bucket given back
+ * stays unavailable for one renewal period (a third of the lease), so the previous owner's
+ * in-flight batch completes before another node polls the bucket.
+ * <p>
+ * Times come from the application clock: keep node clocks in sync well within the lease duration.
+ */
+@Slf4j
+public class StreamBoxPartitionLeaseManager {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String queue;
+    private final String nodeId;
+    private final int buckets;
+    private final Duration leaseDuration;
+
+    // Guarded by this.
+    private final TreeSet<Integer> ownedBuckets = new TreeSet<>();
+    private Instant lastRenewal = Instant.now();
+    private volatile List<Integer> slots = List.of();
+
+    public StreamBoxPartitionLeaseManager(
+            JdbcTemplate jdbcTemplate,
+            String queue,
+            String nodeId,
+            int buckets,
+            Duration leaseDuration) {
+        if (buckets < 1 || buckets > StreamBoxPartitions.SLOTS) {
+            throw new IllegalArgumentException("partitions must be between 1 and " + StreamBoxPartitions.SLOTS);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.queue = queue;
+        this.nodeId = nodeId;
+        this.buckets = buckets;
+        this.leaseDuration = leaseDuration;
+    }
+
+    /** Slots of the buckets currently leased, read by the scheduler on every poll. */
+    public Collection<Integer> slots() {
+        return slots;
+    }
+
+    public synchronized Set<Integer> ownedBuckets() {
+        return Set.copyOf(ownedBuckets);
+    }
+
+    public Duration getLeaseDuration() {
+        return leaseDuration;
+    }
+
+    public synchronized void start() {
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            try {
+                jdbcTemplate.update("INSERT INTO streambox_lease (queue, bucket, owner, expires_at) VALUES (?, ?, NULL, ?)",
+                        queue, bucket, Timestamp.from(Instant.EPOCH));
+            } catch (DuplicateKeyException e) {
+                // Created by another node.
+            }
+        }
+        renew();
+    }
+
+    /** Runs every third of the lease duration. */
+    public synchronized void renew() {
+        final Instant now = Instant.now();
+        final Timestamp nowTs = Timestamp.from(now);
+        final Timestamp expiresAt = Timestamp.from(now.plus(leaseDuration));
+        try {
+            heartbeat(now);
+            final Integer live = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM streambox_node WHERE queue = ?", Integer.class, queue);
+            final int nodes = Math.max(1, live == null ? 1 : live);
+            final int fairShare = (buckets + nodes - 1) / nodes;
+
+            // What we still hold; a bucket taken over after a missed renewal is dropped here.
+            final List<Integer> held = jdbcTemplate.queryForList(
+                    "SELECT bucket FROM streambox_lease WHERE queue = ? AND owner = ? AND expires_at > ?",
+                    Integer.class, queue, nodeId, nowTs);
+            ownedBuckets.clear();
+            ownedBuckets.addAll(held);
+            jdbcTemplate.update("UPDATE streambox_lease SET expires_at = ? WHERE queue = ? AND owner = ? AND expires_at > ?",
+                    expiresAt, queue, nodeId, nowTs);
+
+            if (ownedBuckets.size() > fairShare) {
+                release(new ArrayList<>(ownedBuckets).subList(fairShare, ownedBuckets.size()),
+                        Timestamp.from(now.plus(leaseDuration.dividedBy(3))));
+            } else if (ownedBuckets.size() < fairShare) {
+                acquire(fairShare - ownedBuckets.size(), nowTs, expiresAt);
+            }
+            lastRenewal = now;
+        } catch (RuntimeException e) {
+            // Keep polling what we own until the leases run out, the next renewal retries.
+            log.error("StreamBox lease renewal failed for {}", queue, e);
+            if (!now.isBefore(lastRenewal.plus(leaseDuration))) {
+                ownedBuckets.clear();
+            }
+        }
+        publish();
+    }
+
+    /** Gives every lease back right away, once polling has stopped. */
+    public synchronized void stop() {
+        try {
+            jdbcTemplate.update("UPDATE streambox_lease SET owner = NULL, expires_at = ? WHERE queue = ? AND owner = ?",
+                    Timestamp.from(Instant.EPOCH), queue, nodeId);
+            jdbcTemplate.update("DELETE FROM streambox_node WHERE queue = ? AND node_id = ?", queue, nodeId);
+        } catch (RuntimeException e) {
+            log.warn("StreamBox lease release failed for {}, leases will expire", queue, e);
+        }
+        ownedBuckets.clear();
+        publish();
+    }
+
+    private void heartbeat(Instant now) {
+        final Timestamp beat = Timestamp.from(now);
+        if (jdbcTemplate.update("UPDATE streambox_node SET heartbeat_at = ? WHERE queue = ? AND node_id = ?",
+                beat, queue, nodeId) == 0) {
+            jdbcTemplate.update("INSERT INTO streambox_node (queue, node_id, heartbeat_at) VALUES (?, ?, ?)",
+                    queue, nodeId, beat);
+        }
+        jdbcTemplate.update("DELETE FROM streambox_node WHERE queue = ? AND heartbeat_at < ?",
+                queue, Timestamp.from(now.minus(leaseDuration)));
+    }
+
+    private void acquire(int wanted, Timestamp now, Timestamp expiresAt) {
+        // Start from a node-specific offset so joining nodes do not all race for bucket 0.
+        final int offset = Math.floorMod(nodeId.hashCode(), buckets);
+        for (int i = 0; i < buckets && wanted > 0; i++) {
+            final int bucket = (offset + i) % buckets;
+            if (ownedBuckets.contains(bucket)) {
+                continue;
+            }
+            final int taken = jdbcTemplate.update(
+                    "UPDATE streambox_lease SET owner = ?, expires_at = ? WHERE queue = ? AND bucket = ? AND expires_at <= ?",
+                    nodeId, expiresAt, queue, bucket, now);
+            if (taken == 1) {
+                ownedBuckets.add(bucket);
+                wanted--;
+                log.info("StreamBox {} leased bucket {}", queue, bucket);
+            }
+        }
+    }
+
+    private void release(List<Integer> extra, Timestamp availableAt) {
+        for (Integer bucket : List.copyOf(extra)) {
+            // Owner cleared, but nobody polls the bucket before our last batch is done.
+            jdbcTemplate.update("UPDATE streambox_lease SET owner = NULL, expires_at = ? WHERE queue = ? AND bucket = ? AND owner = ?",
+                    availableAt, queue, bucket, nodeId);
+            ownedBuckets.remove(bucket);
+            log.info("StreamBox {} released bucket {}", queue, bucket);
+        }
+    }
+
+    private void publish() {
+        final List<Integer> leased = new ArrayList<>();
+        for (Integer bucket : ownedBuckets) {
+            leased.addAll(StreamBoxPartitions.slotsOf(bucket, buckets));
+        }
+        slots = List.copyOf(leased);
+    }
+}
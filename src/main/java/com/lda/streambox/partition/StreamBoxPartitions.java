@@ -0,0 +1,42 @@
+package com.lda.streambox.partition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Fixed slot space of the partitioned mode. Every row gets a slot from its partition key when
+ * inserted; nodes lease buckets (contiguous slot ranges), so the bucket count can change
+ * without rewriting rows.
+ */
+public final class StreamBoxPartitions {
+
+    /** Number of slots, the upper bound of the bucket count. */
+    public static final int SLOTS = 256;
+
+    private StreamBoxPartitions() {
+    }
+
+    /**
+     * Slot of a partition key, stable across JVMs ({@link String#hashCode()} is specified).
+     * Keyless rows have no ordering constraint and are spread at random.
+     */
+    public static int slotOf(String partitionKey) {
+        if (partitionKey == null) {
+            return ThreadLocalRandom.current().nextInt(SLOTS);
+        }
+        final int h = partitionKey.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), SLOTS);
+    }
+
+    /** Slots covered by {@code bucket} out of {@code buckets}. */
+    public static List<Integer> slotsOf(int bucket, int buckets) {
+        final List<Integer> slots = new ArrayList<>(SLOTS / buckets + 1);
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if ((long) slot * buckets / SLOTS == bucket) {
+                slots.add(slot);
+            }
+        }
+        return slots;
+    }
+}
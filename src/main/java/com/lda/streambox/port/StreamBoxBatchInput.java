@@ -0,0 +1,23 @@
+package com.lda.streambox.port;
+
+import com.lda.streambox.entity.StreamBoxBaseEntity;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Opt-in contract of a {@link StreamBoxInput}: the scheduler hands it each locked batch (or each
+ * key lane of it, with {@code parallelism} above 1) instead of calling {@code doHandle} per row.
+ * <p>
+ * The scheduler calls it on the bean, so a {@code @Transactional} implementation gets one
+ * transaction per call; {@code doHandle} is not called on this path.
+ */
+public interface StreamBoxBatchInput<T extends StreamBoxBaseEntity> {
+
+    /**
+     * Ids of handled rows go to {@code handled} (finished), ids of rows that failed go to
+     * {@code failed} (retried with backoff, then DEAD). Rows in neither stay PENDING.
+     */
+    void doHandleBatch(List<T> batch, Collection<UUID> handled, Collection<UUID> failed);
+}
@@ -0,0 +1,24 @@
+package com.lda.streambox.port;
+
+import com.lda.streambox.entity.StreamBoxBaseEntity;
+import com.lda.streambox.model.StreamBoxEvent;
+
+import java.util.List;
+
+/**
+ * Optional contract of an {@link com.lda.streambox.InboxAdapter}: receives the decoded events of
+ * a polled batch at once (e.g. for multi-row upserts) instead of one
+ * {@code handleProjection} call per event. Declaring it opts the adapter in to the batch path
+ * ({@link StreamBoxBatchInput}), implemented by {@code InboxAdapter.doHandleBatch}.
+ * <p>
+ * Events come in created_at order, one call per event type when no partition key of the batch
+ * mixes types, otherwise one call for the whole batch. Each call runs in a new transaction of
+ * the input's transaction manager; a call that throws is rolled back, then replayed event by
+ * event through {@code handleProjection} (one transaction per event), so one bad event does not
+ * fail its group and a failed call leaves nothing behind.
+ */
+public interface StreamBoxBatchProjection<E extends StreamBoxBaseEntity, T extends StreamBoxEvent>
+        extends StreamBoxBatchInput<E> {
+
+    void handleProjections(List<T> events);
+}
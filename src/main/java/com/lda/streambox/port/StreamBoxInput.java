@@ -1,11 +1,63 @@
 package com.lda.streambox.port;
 
 import com.lda.streambox.entity.StreamBoxBaseEntity;
+import com.lda.streambox.entity.StreamBoxBaseStatusEnum;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
 
 public interface StreamBoxInput<T extends StreamBoxBaseEntity> {
     List<T> lockNextBatch(int limit);
+
+    /** Locks the next batch among rows of the given partition slots (partitioned mode). */
+    default List<T> lockNextBatch(int limit, Collection<Integer> slots) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support partitioned polling");
+    }
     void finish(T streamBoxEntity);
+    void finishAll(Collection<UUID> ids);
     void doHandle(T streamBoxEntity);
+
+    /**
+     * Claim mode: locks the next batch and marks it IN_PROGRESS for {@code owner} until
+     * {@code leaseUntil}, in one short transaction. {@code slots} is {@code null} outside partitioned mode.
+     */
+    default List<T> claimNextBatch(int limit, Collection<Integer> slots, String owner, Instant leaseUntil) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support claim mode");
+    }
+
+    /** Claim mode: returns claimed rows that were not handled to PENDING. */
+    default void release(Collection<UUID> ids) {
+    }
+
+    /** Claim mode: returns rows whose claim expired to PENDING, returns how many. */
+    default int reapExpiredClaims(Instant now) {
+        return 0;
+    }
+
+    /** Records failed attempt number {@code attempts}, the row is polled again from {@code nextAttemptAt}. */
+    void retryLater(T streamBoxEntity, int attempts, Instant nextAttemptAt);
+
+    /** Moves rows out of the queue for good after their last attempt. */
+    void markDead(Collection<UUID> ids);
+
+    /**
+     * Deletes rows of {@code status} created before {@code olderThan}, {@code chunkSize} at a time.
+     * Returns the number of rows reclaimed.
+     */
+    int purgeExpired(StreamBoxBaseStatusEnum status, Instant olderThan, int chunkSize);
+
+    /** Number of PENDING rows (backlog). */
+    long countPending();
+
+    /** created_at of the oldest PENDING row, {@code null} when there is none. */
+    Instant oldestPendingCreatedAt();
+
+    /**
+     * Key whose rows must be handled in order, {@code null} when the row has no constraint.
+     */
+    default String orderingKey(T streamBoxEntity) {
+        return null;
+    }
 }
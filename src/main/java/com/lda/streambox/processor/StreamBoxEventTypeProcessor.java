@@ -0,0 +1,93 @@
+package com.lda.streambox.processor;
+
+import com.lda.streambox.anotation.StreamBoxEventType;
+import com.lda.streambox.register.StreamBoxEventIndex;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Writes {@link StreamBoxEventIndex#LOCATION} with every {@code @StreamBoxEventType} class of the
+ * compilation, so the event registry does not have to scan the classpath at startup.
+ * Entries of a previous (incremental) build are kept as long as their class still exists.
+ */
+@SupportedAnnotationTypes("com.lda.streambox.anotation.StreamBoxEventType")
+public class StreamBoxEventTypeProcessor extends AbstractProcessor {
+
+    private final Map<String, String> entries = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(StreamBoxEventType.class)) {
+            if (!(element instanceof TypeElement type)) {
+                continue;
+            }
+            final String eventType = type.getAnnotation(StreamBoxEventType.class).value();
+            final String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+            final String previous = entries.put(eventType, className);
+            if (previous != null && !previous.equals(className)) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Duplicate @StreamBoxEventType \"" + eventType + "\" on " + className + " and " + previous, type);
+            }
+        }
+        if (roundEnv.processingOver() && !entries.isEmpty()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    private void writeIndex() {
+        final Map<String, String> index = new TreeMap<>();
+        readPreviousIndex(index);
+        index.putAll(entries);
+        try {
+            FileObject file = processingEnv.getFiler()
+                    .createResource(StandardLocation.CLASS_OUTPUT, "", StreamBoxEventIndex.LOCATION);
+            try (Writer writer = file.openWriter()) {
+                for (Map.Entry<String, String> entry : index.entrySet()) {
+                    writer.write(entry.getKey() + "=" + entry.getValue() + "\n");
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to write " + StreamBoxEventIndex.LOCATION + ": " + e.getMessage());
+        }
+    }
+
+    private void readPreviousIndex(Map<String, String> index) {
+        try {
+            FileObject file = processingEnv.getFiler()
+                    .getResource(StandardLocation.CLASS_OUTPUT, "", StreamBoxEventIndex.LOCATION);
+            final Map<String, String> previous = new TreeMap<>();
+            try (var reader = new BufferedReader(file.openReader(true))) {
+                StreamBoxEventIndex.read(reader, previous);
+            }
+            previous.forEach((eventType, className) -> {
+                if (processingEnv.getElementUtils().getTypeElement(className.replace('$', '.')) != null) {
+                    index.put(eventType, className);
+                }
+            });
+        } catch (IOException | IllegalArgumentException e) {
+            // No previous index: full build.
+        }
+    }
+}
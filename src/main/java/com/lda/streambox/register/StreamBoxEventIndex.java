@@ -0,0 +1,55 @@
+package com.lda.streambox.register;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compile-time index of {@code @StreamBoxEventType} classes, written by
+ * {@link com.lda.streambox.processor.StreamBoxEventTypeProcessor}.
+ * One {@code type=binary.class.Name} entry per line, one index file per jar.
+ */
+public final class StreamBoxEventIndex {
+
+    public static final String LOCATION = "META-INF/streambox/event-types.index";
+
+    private StreamBoxEventIndex() {
+    }
+
+    /**
+     * Entries of every index visible to the class loader, keyed by event type.
+     */
+    public static Map<String, String> load(ClassLoader classLoader) {
+        final Map<String, String> entries = new LinkedHashMap<>();
+        try {
+            Enumeration<URL> resources = classLoader.getResources(LOCATION);
+            while (resources.hasMoreElements()) {
+                try (var reader = new BufferedReader(
+                        new InputStreamReader(resources.nextElement().openStream(), StandardCharsets.UTF_8))) {
+                    read(reader, entries);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + LOCATION, e);
+        }
+        return entries;
+    }
+
+    public static void read(BufferedReader reader, Map<String, String> entries) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            int separator = line.indexOf('=');
+            if (line.isEmpty() || line.startsWith("#") || separator < 0) {
+                continue;
+            }
+            entries.put(line.substring(0, separator), line.substring(separator + 1));
+        }
+    }
+}
@@ -7,18 +7,53 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.util.ClassUtils;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 public class StreamBoxEventRegistry {
 
-    private final Map<String, Class<? extends StreamBoxEvent>> registry = new HashMap<>();
+    private final Map<String, Class<? extends StreamBoxEvent>> registry = new ConcurrentHashMap<>();
+    private final Set<String> collapsibleTypes = ConcurrentHashMap.newKeySet();
+    // Packages loaded from the index, scanned once when a type turns out to be missing from it.
+    private final List<String> indexedPackages = new ArrayList<>();
+    private volatile boolean indexedPackagesScanned = false;
 
     public StreamBoxEventRegistry(List<String> packagesToScan, StreamBoxType type) {
-        packagesToScan.forEach(this::scanPackage);
+        final ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+        final Map<String, String> index = StreamBoxEventIndex.load(classLoader);
+        packagesToScan.forEach(basePackage -> {
+            // The compile-time index wins, scanning stays as a fallback for non-indexed packages.
+            if (loadFromIndex(index, basePackage, classLoader)) {
+                indexedPackages.add(basePackage);
+            } else {
+                scanPackage(basePackage);
+            }
+        });
+    }
+
+    private boolean loadFromIndex(Map<String, String> index, String basePackage, ClassLoader classLoader) {
+        final String prefix = basePackage + ".";
+        boolean found = false;
+        for (Map.Entry<String, String> entry : index.entrySet()) {
+            if (!entry.getValue().startsWith(prefix)) {
+                continue;
+            }
+            if (!ClassUtils.isPresent(entry.getValue(), classLoader)) {
+                log.debug("Indexed StreamBox event {} not found, skipped", entry.getValue());
+                continue;
+            }
+            register(ClassUtils.resolveClassName(entry.getValue(), classLoader));
+            found = true;
+        }
+        return found;
     }
 
     private void scanPackage(String basePackage) {
@@ -27,26 +62,73 @@ public class StreamBoxEventRegistry {
 
         for (BeanDefinition bd : scanner.findCandidateComponents(basePackage)) {
             try {
-                Class<?> clazz = Class.forName(bd.getBeanClassName());
-                if (!StreamBoxEvent.class.isAssignableFrom(clazz)) {
-                    continue;
-                }
+                register(Class.forName(bd.getBeanClassName()));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
 
-                @SuppressWarnings("unchecked")
-                Class<? extends StreamBoxEvent> eventClass =
-                        (Class<? extends StreamBoxEvent>) clazz;
+    private void register(Class<?> clazz) {
+        if (!StreamBoxEvent.class.isAssignableFrom(clazz)) {
+            return;
+        }
 
-                StreamBoxEventType ann = eventClass.getAnnotation(StreamBoxEventType.class);
+        @SuppressWarnings("unchecked")
+        Class<? extends StreamBoxEvent> eventClass =
+                (Class<? extends StreamBoxEvent>) clazz;
 
-                registry.put(ann.value(), eventClass);
+        StreamBoxEventType ann = eventClass.getAnnotation(StreamBoxEventType.class);
 
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
+        registry.put(ann.value(), eventClass);
+        if (ann.collapsible()) {
+            collapsibleTypes.add(ann.value());
         }
     }
 
     public Class<? extends StreamBoxEvent> resolve(String type) {
+        final Class<? extends StreamBoxEvent> eventClass = registry.get(type);
+        if (eventClass != null || indexedPackagesScanned) {
+            return eventClass;
+        }
+        scanIndexedPackages(type);
         return registry.get(type);
     }
-}
\ No newline at end of file
+
+    /**
+     * A package is partially indexed when some of its events were compiled without the
+     * processor (e.g. another module): the first unknown type scans the indexed packages once.
+     */
+    private synchronized void scanIndexedPackages(String type) {
+        if (indexedPackagesScanned) {
+            return;
+        }
+        final Set<String> indexed = new HashSet<>(registry.keySet());
+        indexedPackages.forEach(this::scanPackage);
+        indexedPackagesScanned = true;
+        registry.forEach((found, eventClass) -> {
+            if (!indexed.contains(found)) {
+                log.warn("StreamBox event type {} ({}) is missing from the compile-time index, "
+                        + "run the StreamBox annotation processor on its module", found, eventClass.getName());
+            }
+        });
+        if (!registry.containsKey(type)) {
+            log.debug("StreamBox event type {} not found by scanning {}", type, indexedPackages);
+        }
+    }
+
+    /**
+     * {@code true} for types declared {@code @StreamBoxEventType(collapsible = true)}.
+     */
+    public boolean isCollapsible(String type) {
+        return collapsibleTypes.contains(type);
+    }
+
+    public boolean hasCollapsibleTypes() {
+        return !collapsibleTypes.isEmpty();
+    }
+
+    public Collection<Class<? extends StreamBoxEvent>> eventClasses() {
+        return registry.values();
+    }
+}
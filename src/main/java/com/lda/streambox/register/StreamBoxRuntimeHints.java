@@ -0,0 +1,26 @@
+package com.lda.streambox.register;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Native image hints: the event index itself, and Jackson binding reflection for every
+ * indexed event class so inbox payloads can be deserialized.
+ */
+public class StreamBoxRuntimeHints implements RuntimeHintsRegistrar {
+
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        hints.resources().registerPattern(StreamBoxEventIndex.LOCATION);
+        StreamBoxEventIndex.load(classLoader).values().forEach(className -> {
+            if (ClassUtils.isPresent(className, classLoader)) {
+                bindingRegistrar.registerReflectionHints(
+                        hints.reflection(), ClassUtils.resolveClassName(className, classLoader));
+            }
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package com.lda.streambox.replay;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Checkpoints in a small table, so a replay resumes after a restart:
+ * <pre>
+ * streambox_replay (name, created_at, id, replayed, updated_at)   -- one row per replay name
+ * </pre>
+ */
+public class StreamBoxJdbcReplayCheckpointStore implements StreamBoxReplayCheckpointStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StreamBoxJdbcReplayCheckpointStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Optional<StreamBoxReplayCheckpoint> load(String name) {
+        return jdbcTemplate.query("SELECT created_at, id, replayed FROM streambox_replay WHERE name = ?",
+                (rs, rowNum) -> new StreamBoxReplayCheckpoint(
+                        rs.getTimestamp("created_at").toInstant(),
+                        rs.getObject("id", UUID.class),
+                        rs.getLong("replayed")),
+                name).stream().findFirst();
+    }
+
+    @Override
+    public void save(String name, StreamBoxReplayCheckpoint checkpoint) {
+        final Timestamp now = Timestamp.from(Instant.now());
+        if (update(name, checkpoint, now) == 0) {
+            try {
+                jdbcTemplate.update(
+                        "INSERT INTO streambox_replay (name, created_at, id, replayed, updated_at) VALUES (?, ?, ?, ?, ?)",
+                        name, Timestamp.from(checkpoint.createdAt()), checkpoint.id(), checkpoint.replayed(), now);
+            } catch (DuplicateKeyException e) {
+                // Inserted by a concurrent run of the same replay since our UPDATE.
+                update(name, checkpoint, now);
+            }
+        }
+    }
+
+    private int update(String name, StreamBoxReplayCheckpoint checkpoint, Timestamp now) {
+        return jdbcTemplate.update(
+                "UPDATE streambox_replay SET created_at = ?, id = ?, replayed = ?, updated_at = ? WHERE name = ?",
+                Timestamp.from(checkpoint.createdAt()), checkpoint.id(), checkpoint.replayed(), now, name);
+    }
+
+    @Override
+    public void clear(String name) {
+        jdbcTemplate.update("DELETE FROM streambox_replay WHERE name = ?", name);
+    }
+}
@@ -0,0 +1,13 @@
+package com.lda.streambox.replay;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Position of a replay: the (created_at, id) of the last applied row, and how many rows were applied.
+ */
+public record StreamBoxReplayCheckpoint(Instant createdAt, UUID id, long replayed) {
+
+    /** Before the first row. */
+    public static final StreamBoxReplayCheckpoint START = new StreamBoxReplayCheckpoint(Instant.EPOCH, new UUID(0, 0), 0);
+}
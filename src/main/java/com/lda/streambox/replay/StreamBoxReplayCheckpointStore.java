@@ -0,0 +1,40 @@
+package com.lda.streambox.replay;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Where a replay records its progress, saved after every page so it can resume.
+ */
+public interface StreamBoxReplayCheckpointStore {
+
+    Optional<StreamBoxReplayCheckpoint> load(String name);
+
+    void save(String name, StreamBoxReplayCheckpoint checkpoint);
+
+    void clear(String name);
+
+    /**
+     * Process-local store: resumes after a cancel, not after a restart.
+     */
+    static StreamBoxReplayCheckpointStore inMemory() {
+        final Map<String, StreamBoxReplayCheckpoint> checkpoints = new ConcurrentHashMap<>();
+        return new StreamBoxReplayCheckpointStore() {
+            @Override
+            public Optional<StreamBoxReplayCheckpoint> load(String name) {
+                return Optional.ofNullable(checkpoints.get(name));
+            }
+
+            @Override
+            public void save(String name, StreamBoxReplayCheckpoint checkpoint) {
+                checkpoints.put(name, checkpoint);
+            }
+
+            @Override
+            public void clear(String name) {
+                checkpoints.remove(name);
+            }
+        };
+    }
+}
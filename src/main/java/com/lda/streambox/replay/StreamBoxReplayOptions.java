@@ -0,0 +1,24 @@
+package com.lda.streambox.replay;
+
+import lombok.Builder;
+
+import java.time.Instant;
+
+/**
+ * @param pageSize           rows read per keyset page
+ * @param parallelism        max partition keys applied at once, 1 applies each page serially
+ * @param maxEventsPerSecond throttle, 0 for none
+ * @param until              only rows created up to this instant, the start of the run when {@code null}
+ * @param restart            ignore the saved checkpoint and replay from the first row
+ */
+@Builder
+public record StreamBoxReplayOptions(int pageSize, int parallelism, int maxEventsPerSecond, Instant until, boolean restart) {
+
+    public static final StreamBoxReplayOptions DEFAULTS = StreamBoxReplayOptions.builder().build();
+
+    public StreamBoxReplayOptions {
+        pageSize = pageSize > 0 ? pageSize : 500;
+        parallelism = Math.max(1, parallelism);
+        maxEventsPerSecond = Math.max(0, maxEventsPerSecond);
+    }
+}
@@ -0,0 +1,197 @@
+package com.lda.streambox.replay;
+
+import com.lda.streambox.entity.StreamBoxBaseEntity;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Rebuilds a projection from the FINISHED rows of a StreamBox table. Rows are read in keyset
+ * pages on (created_at, id) without locks, the next page being fetched while the current one is
+ * applied. Each page is decoded in parallel, then applied in order per partition key (up to
+ * {@code parallelism} keys at once) and checkpointed, so {@link #run()} resumes after the last
+ * applied page. Live polling is left alone: PENDING rows are not read and nothing is updated.
+ * <p>
+ * A failing row stops the run, the checkpoint staying at the last complete page. With
+ * {@code parallelism} above 1 the other lanes of that page may already be applied, and are
+ * applied again by the next run: projections must be idempotent (upserts, absolute values).
+ */
+@Slf4j
+public class StreamBoxReplayer<E extends StreamBoxBaseEntity, T> {
+
+    /** Reads the rows after a checkpoint, in (created_at, id) order. */
+    @FunctionalInterface
+    public interface PageReader<E> {
+        List<E> read(StreamBoxReplayCheckpoint after, Instant until, int limit);
+    }
+
+    private final String name;
+    private final PageReader<E> pageReader;
+    private final Function<E, T> decoder;
+    private final Function<E, String> orderingKey;
+    private final Consumer<List<T>> applier;
+    private final StreamBoxReplayOptions options;
+    private final StreamBoxReplayCheckpointStore checkpoints;
+
+    private volatile boolean cancelled = false;
+
+    /**
+     * @param applier applies events sharing an ordering key (or a whole page), in order; one
+     *                call is the unit that commits or fails as a whole
+     */
+    public StreamBoxReplayer(
+            String name,
+            PageReader<E> pageReader,
+            Function<E, T> decoder,
+            Function<E, String> orderingKey,
+            Consumer<List<T>> applier,
+            StreamBoxReplayOptions options,
+            StreamBoxReplayCheckpointStore checkpoints) {
+        this.name = name;
+        this.pageReader = pageReader;
+        this.decoder = decoder;
+        this.orderingKey = orderingKey;
+        this.applier = applier;
+        this.options = options;
+        this.checkpoints = checkpoints;
+    }
+
+    /**
+     * Replays up to {@code until} (or until cancelled) and returns the number of rows applied
+     * by this replay so far, previous runs included.
+     */
+    public long run() {
+        cancelled = false;
+        final Instant until = options.until() != null ? options.until() : Instant.now();
+        if (options.restart()) {
+            checkpoints.clear(name);
+        }
+        StreamBoxReplayCheckpoint checkpoint = checkpoints.load(name).orElse(StreamBoxReplayCheckpoint.START);
+        log.info("StreamBox replay {} started after {} rows, up to {}", name, checkpoint.replayed(), until);
+
+        final long started = System.nanoTime();
+        long replayedNow = 0;
+        try (ExecutorService prefetcher = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture<List<E>> next = fetch(prefetcher, checkpoint, until);
+            while (!cancelled) {
+                final List<E> page = join(next);
+                if (page.isEmpty()) {
+                    break;
+                }
+                final E last = page.getLast();
+                final StreamBoxReplayCheckpoint reached = new StreamBoxReplayCheckpoint(
+                        last.getCreatedAt(), last.getId(), checkpoint.replayed() + page.size());
+                next = page.size() < options.pageSize()
+                        ? CompletableFuture.completedFuture(List.of())
+                        : fetch(prefetcher, reached, until);
+
+                apply(page);
+                checkpoints.save(name, reached);
+                checkpoint = reached;
+                replayedNow += page.size();
+                throttle(replayedNow, started);
+            }
+            next.cancel(false);
+        }
+        log.info("StreamBox replay {} {} after {} rows ({} in {})", name, cancelled ? "cancelled" : "done",
+                checkpoint.replayed(), replayedNow, Duration.ofNanos(System.nanoTime() - started));
+        return checkpoint.replayed();
+    }
+
+    /**
+     * Stops {@link #run()} after the page being applied.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    private CompletableFuture<List<E>> fetch(ExecutorService executor, StreamBoxReplayCheckpoint after, Instant until) {
+        return CompletableFuture.supplyAsync(() -> pageReader.read(after, until, options.pageSize()), executor);
+    }
+
+    private void apply(List<E> page) {
+        // Decoding has no ordering constraint, applying keeps the order of each key.
+        final List<T> events = page.parallelStream().map(decoder).toList();
+        if (options.parallelism() == 1) {
+            applier.accept(events);
+            return;
+        }
+
+        final List<List<T>> lanes = new ArrayList<>();
+        final Map<String, List<T>> lanesByKey = new HashMap<>();
+        for (int i = 0; i < page.size(); i++) {
+            final String key = orderingKey.apply(page.get(i));
+            if (key == null) {
+                lanes.add(List.of(events.get(i)));
+            } else {
+                lanesByKey.computeIfAbsent(key, k -> {
+                    final List<T> lane = new ArrayList<>();
+                    lanes.add(lane);
+                    return lane;
+                }).add(events.get(i));
+            }
+        }
+
+        final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        final Semaphore permits = new Semaphore(options.parallelism());
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (List<T> lane : lanes) {
+                permits.acquireUninterruptibly();
+                executor.execute(() -> {
+                    try {
+                        if (failure.get() == null) {
+                            applier.accept(lane);
+                        }
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    private void throttle(long replayed, long started) {
+        if (options.maxEventsPerSecond() == 0) {
+            return;
+        }
+        final long dueNanos = replayed * 1_000_000_000L / options.maxEventsPerSecond();
+        final long aheadMillis = (dueNanos - (System.nanoTime() - started)) / 1_000_000;
+        if (aheadMillis > 0) {
+            try {
+                Thread.sleep(aheadMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelled = true;
+            }
+        }
+    }
+
+    private static <R> R join(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.lda.streambox.repository;
+
+import com.lda.streambox.entity.StreamBoxBasePayloadEntity;
+import com.lda.streambox.entity.StreamBoxBaseStatusEnum;
+import jakarta.persistence.Entity;
+import org.springframework.beans.BeanUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Plain JDBC alternative to {@link StreamBoxQueryRepository#lockNextBatch}: selects only the
+ * columns handling needs, with a fetch size, and maps them to detached entities. Nothing
+ * enters a persistence context, so large batches cost no dirty-check snapshots and no
+ * first-level cache. Completion stays with the set-based repository updates.
+ * <p>
+ * Columns declared by subclasses of {@link StreamBoxBasePayloadEntity} are not read.
+ * {@code dataSource} must be the one behind {@code transactionManager}, so the row locks are
+ * taken in the transaction it opens.
+ */
+public class StreamBoxJdbcBatchFetcher<T extends StreamBoxBasePayloadEntity> {
+
+    private static final String COLUMNS =
+            "id, status, created_at, attempts, next_attempt_at, type, payload, payload_bin, payload_codec, "
+                    + "partition_key, partition_no";
+
+    private final Class<T> entityType;
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate transaction;
+    private final String lockSql;
+    private final String lockInSlotsSql;
+    private final String claimSql;
+    private final RowMapper<T> rowMapper = this::mapRow;
+
+    public StreamBoxJdbcBatchFetcher(
+            Class<T> entityType,
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            int fetchSize) {
+        this.entityType = entityType;
+        final JdbcTemplate fetching = new JdbcTemplate(dataSource);
+        fetching.setFetchSize(fetchSize);
+        this.jdbc = new NamedParameterJdbcTemplate(fetching);
+        this.transaction = new TransactionTemplate(transactionManager);
+        final String table = tableOf(entityType);
+        this.lockSql = """
+                SELECT %s FROM %s
+                WHERE status = 'PENDING'
+                  AND (next_attempt_at IS NULL OR next_attempt_at <= :now)
+                ORDER BY created_at
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED
+                """.formatted(COLUMNS, table);
+        this.lockInSlotsSql = """
+                SELECT %s FROM %s
+                WHERE status = 'PENDING'
+                  AND partition_no IN (:slots)
+                  AND (next_attempt_at IS NULL OR next_attempt_at <= :now)
+                ORDER BY created_at
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED
+                """.formatted(COLUMNS, table);
+        this.claimSql = """
+                UPDATE %s
+                SET status = 'IN_PROGRESS', claimed_by = :owner, lease_until = :leaseUntil
+                WHERE id IN (:ids)
+                """.formatted(table);
+    }
+
+    /**
+     * Locks the next batch, restricted to {@code slots} unless {@code null}.
+     */
+    public List<T> lockNextBatch(int limit, Instant now, Collection<Integer> slots) {
+        return transaction.execute(status -> select(limit, now, slots));
+    }
+
+    /**
+     * Locks the next batch and marks it IN_PROGRESS for {@code owner} in one transaction.
+     */
+    public List<T> claimNextBatch(int limit, Instant now, Collection<Integer> slots, String owner, Instant leaseUntil) {
+        return transaction.execute(status -> {
+            final List<T> batch = select(limit, now, slots);
+            if (!batch.isEmpty()) {
+                jdbc.update(claimSql, new MapSqlParameterSource()
+                        .addValue("ids", batch.stream().map(T::getId).toList())
+                        .addValue("owner", owner)
+                        .addValue("leaseUntil", Timestamp.from(leaseUntil)));
+            }
+            return batch;
+        });
+    }
+
+    private List<T> select(int limit, Instant now, Collection<Integer> slots) {
+        final MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("limit", limit)
+                .addValue("now", Timestamp.from(now));
+        if (slots == null) {
+            return jdbc.query(lockSql, params, rowMapper);
+        }
+        return jdbc.query(lockInSlotsSql, params.addValue("slots", slots), rowMapper);
+    }
+
+    private T mapRow(ResultSet rs, int rowNum) throws SQLException {
+        final T entity = BeanUtils.instantiateClass(entityType);
+        entity.setId(rs.getObject("id", UUID.class));
+        entity.setStatus(StreamBoxBaseStatusEnum.valueOf(rs.getString("status")));
+        entity.setCreatedAt(toInstant(rs.getTimestamp("created_at")));
+        entity.setAttempts(rs.getInt("attempts"));
+        entity.setNextAttemptAt(toInstant(rs.getTimestamp("next_attempt_at")));
+        entity.setType(rs.getString("type"));
+        entity.setPayload(rs.getString("payload"));
+        entity.setPayloadBin(rs.getBytes("payload_bin"));
+        entity.setPayloadCodec(rs.getString("payload_codec"));
+        entity.setPartitionKey(rs.getString("partition_key"));
+        entity.setPartitionNo(rs.getObject("partition_no", Integer.class));
+        return entity;
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+
+    // Same convention as the native queries (#{#entityName}): the entity name is the table name.
+    private static String tableOf(Class<?> entityType) {
+        final Entity entity = entityType.getAnnotation(Entity.class);
+        return entity != null && !entity.name().isEmpty() ? entity.name() : entityType.getSimpleName();
+    }
+}
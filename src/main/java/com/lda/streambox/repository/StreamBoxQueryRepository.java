@@ -1,21 +1,207 @@
 package com.lda.streambox.repository;
 
+import com.lda.streambox.entity.StreamBoxBaseEntity;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.NoRepositoryBean;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
 
 @NoRepositoryBean
-public interface StreamBoxQueryRepository<T> {
+public interface StreamBoxQueryRepository<T extends StreamBoxBaseEntity> {
 
     @Query(value = """
         SELECT * FROM #{#entityName}
         WHERE status = 'PENDING'
+          AND (next_attempt_at IS NULL OR next_attempt_at <= :now)
         ORDER BY created_at
         LIMIT :limit
         FOR UPDATE SKIP LOCKED
     """, nativeQuery = true)
-    List<T> lockNextBatch(@Param("limit") int limit);
+    List<T> lockNextBatch(@Param("limit") int limit, @Param("now") Instant now);
+
+    /**
+     * {@link #lockNextBatch} restricted to the partition slots leased by this node.
+     */
+    @Query(value = """
+        SELECT * FROM #{#entityName}
+        WHERE status = 'PENDING'
+          AND partition_no IN (:slots)
+          AND (next_attempt_at IS NULL OR next_attempt_at <= :now)
+        ORDER BY created_at
+        LIMIT :limit
+        FOR UPDATE SKIP LOCKED
+    """, nativeQuery = true)
+    List<T> lockNextBatchInSlots(
+            @Param("limit") int limit,
+            @Param("now") Instant now,
+            @Param("slots") Collection<Integer> slots);
+
+    /**
+     * Rows still to handle that have no partition slot (inserted before the column existed).
+     */
+    @Query(value = """
+        SELECT * FROM #{#entityName}
+        WHERE partition_no IS NULL
+          AND status <> 'FINISHED'
+        LIMIT :limit
+    """, nativeQuery = true)
+    List<T> findUnslotted(@Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE #{#entityName}
+        SET partition_no = :slot
+        WHERE id IN (:ids) AND partition_no IS NULL
+    """, nativeQuery = true)
+    int assignSlot(@Param("ids") Collection<UUID> ids, @Param("slot") int slot);
+
+    /**
+     * Replay: FINISHED rows after the (createdAt, id) keyset cursor, in that order, without locks.
+     */
+    @Query(value = """
+        SELECT * FROM #{#entityName}
+        WHERE status = 'FINISHED'
+          AND created_at <= :until
+          AND (created_at, id) > (:afterCreatedAt, :afterId)
+        ORDER BY created_at, id
+        LIMIT :limit
+    """, nativeQuery = true)
+    List<T> findReplayPage(
+            @Param("afterCreatedAt") Instant afterCreatedAt,
+            @Param("afterId") UUID afterId,
+            @Param("until") Instant until,
+            @Param("limit") int limit);
+
+    /**
+     * Claim mode: locks the next batch and marks it IN_PROGRESS for {@code owner} in one short
+     * transaction. The rows are then handled without any transaction or lock held.
+     */
+    @Transactional
+    default List<T> claimNextBatch(int limit, Instant now, String owner, Instant leaseUntil) {
+        final List<T> batch = lockNextBatch(limit, now);
+        if (!batch.isEmpty()) {
+            claim(batch.stream().map(StreamBoxBaseEntity::getId).toList(), owner, leaseUntil);
+        }
+        return batch;
+    }
+
+    @Transactional
+    default List<T> claimNextBatchInSlots(int limit, Instant now, Collection<Integer> slots, String owner, Instant leaseUntil) {
+        final List<T> batch = lockNextBatchInSlots(limit, now, slots);
+        if (!batch.isEmpty()) {
+            claim(batch.stream().map(StreamBoxBaseEntity::getId).toList(), owner, leaseUntil);
+        }
+        return batch;
+    }
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE #{#entityName}
+        SET status = 'IN_PROGRESS', claimed_by = :owner, lease_until = :leaseUntil
+        WHERE id IN (:ids)
+    """, nativeQuery = true)
+    int claim(
+            @Param("ids") Collection<UUID> ids,
+            @Param("owner") String owner,
+            @Param("leaseUntil") Instant leaseUntil);
+
+    /**
+     * Claim mode: gives claimed rows that were not handled back to the queue as they were.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE #{#entityName}
+        SET status = 'PENDING', claimed_by = NULL, lease_until = NULL
+        WHERE id IN (:ids) AND status = 'IN_PROGRESS'
+    """, nativeQuery = true)
+    int release(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Claim mode: returns rows whose claim lease ran out (crashed or stalled node) to PENDING.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE #{#entityName}
+        SET status = 'PENDING', claimed_by = NULL, lease_until = NULL
+        WHERE status = 'IN_PROGRESS' AND lease_until < :now
+    """, nativeQuery = true)
+    int reapExpiredClaims(@Param("now") Instant now);
+
+    /**
+     * Set-based completion of a handled batch: one UPDATE instead of one merge per row.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE #{#entityName}
+        SET status = 'FINISHED'
+        WHERE id IN (:ids)
+    """, nativeQuery = true)
+    int finishAll(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Records a failed attempt and hides the row from {@link #lockNextBatch} until {@code nextAttemptAt}.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE #{#entityName}
+        SET status = 'PENDING', attempts = :attempts, next_attempt_at = :nextAttemptAt,
+            claimed_by = NULL, lease_until = NULL
+        WHERE id = :id
+    """, nativeQuery = true)
+    int retryLater(
+            @Param("id") UUID id,
+            @Param("attempts") int attempts,
+            @Param("nextAttemptAt") Instant nextAttemptAt);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE #{#entityName}
+        SET status = 'DEAD', attempts = attempts + 1
+        WHERE id IN (:ids)
+    """, nativeQuery = true)
+    int markDead(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Oldest ids of a status created before a cut-off. Deleting each page before asking for
+     * the next one keeps the scan at the head of the (created_at, id) order, no OFFSET.
+     */
+    @Query(value = """
+        SELECT id FROM #{#entityName}
+        WHERE status = :status
+          AND created_at < :olderThan
+        ORDER BY created_at, id
+        LIMIT :limit
+    """, nativeQuery = true)
+    List<UUID> findExpiredIds(
+            @Param("status") String status,
+            @Param("olderThan") Instant olderThan,
+            @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+        DELETE FROM #{#entityName}
+        WHERE id IN (:ids)
+    """, nativeQuery = true)
+    int deleteAllByIds(@Param("ids") Collection<UUID> ids);
+
+    @Query("SELECT COUNT(e) FROM #{#entityName} e WHERE e.status = com.lda.streambox.entity.StreamBoxBaseStatusEnum.PENDING")
+    long countPending();
+
+    @Query("SELECT MIN(e.createdAt) FROM #{#entityName} e WHERE e.status = com.lda.streambox.entity.StreamBoxBaseStatusEnum.PENDING")
+    Instant findOldestPendingCreatedAt();
 
 }
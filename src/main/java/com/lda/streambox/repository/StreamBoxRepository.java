@@ -1,10 +1,11 @@
 package com.lda.streambox.repository;
 
+import com.lda.streambox.entity.StreamBoxBaseEntity;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.NoRepositoryBean;
 
 import java.util.UUID;
 
 @NoRepositoryBean
-public interface StreamBoxRepository<T> extends StreamBoxQueryRepository<T>, CrudRepository<T, UUID> {
+public interface StreamBoxRepository<T extends StreamBoxBaseEntity> extends StreamBoxQueryRepository<T>, CrudRepository<T, UUID> {
 }
@@ -0,0 +1,42 @@
+package com.lda.streambox.scheduler;
+
+import com.lda.streambox.entity.StreamBoxBaseStatusEnum;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "streambox.retention")
+@Validated
+public class StreamBoxRetentionProperties {
+
+    /** On/off switch for the retention job (requires streambox.scheduler.enabled). */
+    private boolean enabled = false;
+
+    /**
+     * Run rate (ISO duration or millis string).
+     */
+    private String fixedRate = "PT1H";
+
+    /**
+     * Initial delay (ISO duration or millis string).
+     */
+    private String initialDelay = "PT1M";
+
+    /**
+     * Rows deleted per statement, each chunk runs in its own short transaction.
+     */
+    private int chunkSize = 500;
+
+    /**
+     * Max age per status (ISO duration, e.g. "P7D"). Statuses without an entry are kept forever,
+     * PENDING rows are never purged.
+     */
+    private Map<StreamBoxBaseStatusEnum, String> maxAge = new EnumMap<>(Map.of(
+            StreamBoxBaseStatusEnum.FINISHED, "P7D",
+            StreamBoxBaseStatusEnum.DEAD, "P30D"
+    ));
+}
@@ -0,0 +1,41 @@
+package com.lda.streambox.scheduler;
+
+import java.time.Duration;
+
+/**
+ * Exponential backoff between failed attempts of a row, and when to give up on it.
+ */
+public class StreamBoxRetryPolicy {
+
+    public static final StreamBoxRetryPolicy DEFAULT =
+            new StreamBoxRetryPolicy(10, Duration.ofSeconds(1), Duration.ofMinutes(10));
+
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    public StreamBoxRetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    public static StreamBoxRetryPolicy of(StreamBoxSchedulersProperties.ScheduleConfig config) {
+        return new StreamBoxRetryPolicy(
+                config.getMaxAttempts(),
+                StreamBoxSchedulersProperties.parseDuration(config.getRetryBackoff()),
+                StreamBoxSchedulersProperties.parseDuration(config.getMaxRetryBackoff()));
+    }
+
+    /** {@code true} once {@code attempts} failed attempts leave no retry. */
+    public boolean isExhausted(int attempts) {
+        return attempts >= maxAttempts;
+    }
+
+    /** Delay before the attempt following failed attempt number {@code attempts} (1-based). */
+    public Duration backoff(int attempts) {
+        final int doublings = Math.min(Math.max(0, attempts - 1), 30);
+        final Duration delay = initialBackoff.multipliedBy(1L << doublings);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+}
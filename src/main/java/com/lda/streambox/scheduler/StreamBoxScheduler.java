@@ -1,25 +1,264 @@
 package com.lda.streambox.scheduler;
 
 import com.lda.streambox.entity.StreamBoxBaseEntity;
+import com.lda.streambox.port.StreamBoxBatchInput;
 import com.lda.streambox.port.StreamBoxInput;
+import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+@Slf4j
 public class StreamBoxScheduler<T extends StreamBoxBaseEntity> {
 
     private final StreamBoxInput<T> streamBoxInput;
+    private final int parallelism;
+    private final List<Runnable> wakeUpListeners = new CopyOnWriteArrayList<>();
+    private StreamBoxSchedulerObserver observer = StreamBoxSchedulerObserver.NOOP;
+    private StreamBoxRetryPolicy retryPolicy = StreamBoxRetryPolicy.DEFAULT;
+    private Supplier<Collection<Integer>> slots;
+    private String claimOwner;
+    private Duration claimLease;
 
     public StreamBoxScheduler(StreamBoxInput<T> streamBoxInput) {
+        this(streamBoxInput, 1);
+    }
+
+    /**
+     * @param parallelism max number of ordering keys handled at once on virtual threads,
+     *                    1 handles the batch serially on the polling thread
+     */
+    public StreamBoxScheduler(StreamBoxInput<T> streamBoxInput, int parallelism) {
         this.streamBoxInput = streamBoxInput;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Handles one batch and returns how many rows were locked, so callers can tell
+     * a full batch (more work waiting) from an empty one.
+     */
+    public int consume(int limit) {
+        final long lockStart = System.nanoTime();
+        final List<T> batch = lockNextBatch(limit);
+        observer.onLock(System.nanoTime() - lockStart, batch.size(), limit);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // Handled rows are finished, failed ones retried later; a failure never blocks the batch.
+        final Queue<UUID> handled = new ConcurrentLinkedQueue<>();
+        final Set<UUID> failed = ConcurrentHashMap.newKeySet();
+        try {
+            if (parallelism > 1) {
+                handleConcurrently(batch, handled, failed);
+            } else {
+                handleLane(batch, handled, failed);
+            }
+        } finally {
+            final List<UUID> finished = List.copyOf(handled);
+            final long finishStart = System.nanoTime();
+            streamBoxInput.finishAll(finished);
+            observer.onFinish(System.nanoTime() - finishStart, finished.size());
+            if (!failed.isEmpty()) {
+                retryOrBury(batch, failed);
+            }
+            if (claimOwner != null) {
+                releaseSkipped(batch, finished, failed);
+            }
+        }
+        return batch.size();
+    }
+
+    public void setObserver(StreamBoxSchedulerObserver observer) {
+        this.observer = observer;
     }
 
-    public void consume(int limit) {
-        streamBoxInput
-                .lockNextBatch(limit)
-                .forEach(streamBoxInput::doHandle);
+    public void setRetryPolicy(StreamBoxRetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Partitioned mode: only rows of the slots returned by {@code slots} are polled,
+     * nothing while it is empty (no lease held).
+     */
+    public void setSlots(Supplier<Collection<Integer>> slots) {
+        this.slots = slots;
+    }
+
+    /**
+     * Claim mode: batches are claimed (IN_PROGRESS, owner, lease expiry) in one short
+     * transaction and handled without holding any row lock or transaction.
+     */
+    public void setClaimMode(String owner, Duration lease) {
+        this.claimOwner = owner;
+        this.claimLease = lease;
     }
 
     public Runnable runnable(int limit) {
         return () -> consume(limit);
     }
 
+    /**
+     * Registers what to run when {@link #wakeUp()} is called (immediate dispatch).
+     */
+    public void onWakeUp(Runnable listener) {
+        wakeUpListeners.add(listener);
+    }
+
+    public boolean isWakeUpEnabled() {
+        return !wakeUpListeners.isEmpty();
+    }
 
+    /**
+     * Asks the planned task(s) to poll now, e.g. right after new rows were committed.
+     */
+    public void wakeUp() {
+        wakeUpListeners.forEach(Runnable::run);
+    }
+
+    private List<T> lockNextBatch(int limit) {
+        final Collection<Integer> leased = slots == null ? null : slots.get();
+        if (leased != null && leased.isEmpty()) {
+            return List.of();
+        }
+        if (claimOwner != null) {
+            return streamBoxInput.claimNextBatch(limit, leased, claimOwner, Instant.now().plus(claimLease));
+        }
+        return leased == null ? streamBoxInput.lockNextBatch(limit) : streamBoxInput.lockNextBatch(limit, leased);
+    }
+
+    // Rows skipped behind a failed key go back to PENDING right away instead of waiting for the reaper.
+    private void releaseSkipped(List<T> batch, Collection<UUID> finished, Set<UUID> failed) {
+        final Set<UUID> done = new HashSet<>(finished);
+        final List<UUID> skipped = batch.stream()
+                .map(StreamBoxBaseEntity::getId)
+                .filter(id -> !done.contains(id) && !failed.contains(id))
+                .toList();
+        streamBoxInput.release(skipped);
+    }
+
+    private void retryOrBury(List<T> batch, Set<UUID> failed) {
+        final Instant now = Instant.now();
+        final List<UUID> dead = new ArrayList<>();
+        for (T entity : batch) {
+            if (!failed.contains(entity.getId())) {
+                continue;
+            }
+            final int attempts = entity.getAttempts() + 1;
+            if (retryPolicy.isExhausted(attempts)) {
+                log.warn("StreamBox row {} moved to DEAD after {} attempts", entity.getId(), attempts);
+                dead.add(entity.getId());
+            } else {
+                streamBoxInput.retryLater(entity, attempts, now.plus(retryPolicy.backoff(attempts)));
+            }
+        }
+        streamBoxInput.markDead(dead);
+        if (failed.size() > dead.size()) {
+            observer.onFailure(failed.size() - dead.size());
+        }
+        if (!dead.isEmpty()) {
+            observer.onDead(dead.size());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void handleLane(List<T> lane, Queue<UUID> handled, Set<UUID> failed) {
+        if (!(streamBoxInput instanceof StreamBoxBatchInput<?> batchInput)) {
+            handleOneByOne(lane, handled, failed);
+            return;
+        }
+        final long start = System.nanoTime();
+        try {
+            ((StreamBoxBatchInput<T>) batchInput).doHandleBatch(lane, handled, failed);
+        } finally {
+            observer.onHandle(System.nanoTime() - start, lane.size());
+        }
+    }
+
+    /**
+     * Calls {@code doHandle} on the input bean for each row, so its own {@code @Transactional}
+     * applies row by row. A failure skips the remaining rows of the same ordering key only.
+     */
+    private void handleOneByOne(List<T> lane, Queue<UUID> handled, Set<UUID> failed) {
+        Set<String> failedKeys = null;
+        for (T entity : lane) {
+            final String key = streamBoxInput.orderingKey(entity);
+            if (key != null && failedKeys != null && failedKeys.contains(key)) {
+                continue;
+            }
+            final long start = System.nanoTime();
+            try {
+                streamBoxInput.doHandle(entity);
+                handled.add(entity.getId());
+            } catch (RuntimeException e) {
+                log.error("StreamBox row {} failed (attempt {})", entity.getId(), entity.getAttempts() + 1, e);
+                failed.add(entity.getId());
+                if (key != null) {
+                    if (failedKeys == null) failedKeys = new HashSet<>();
+                    failedKeys.add(key);
+                }
+            } finally {
+                observer.onHandle(System.nanoTime() - start, 1);
+            }
+        }
+    }
+
+    /**
+     * Splits the batch in lanes of rows sharing an ordering key (keyless rows get a lane
+     * each) and runs up to {@code parallelism} lanes at once. A failed row skips the later
+     * rows of its key (they stay PENDING); other lanes complete.
+     * Returns once every lane is done and rethrows the first exception escaping a lane.
+     */
+    private void handleConcurrently(List<T> batch, Queue<UUID> handled, Set<UUID> failed) {
+        final List<List<T>> lanes = new ArrayList<>();
+        final Map<String, List<T>> lanesByKey = new HashMap<>();
+        for (T entity : batch) {
+            final String key = streamBoxInput.orderingKey(entity);
+            if (key == null) {
+                lanes.add(List.of(entity));
+            } else {
+                lanesByKey.computeIfAbsent(key, k -> {
+                    final List<T> lane = new ArrayList<>();
+                    lanes.add(lane);
+                    return lane;
+                }).add(entity);
+            }
+        }
+
+        final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        final Semaphore permits = new Semaphore(parallelism);
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (List<T> lane : lanes) {
+                permits.acquireUninterruptibly();
+                executor.execute(() -> {
+                    try {
+                        handleLane(lane, handled, failed);
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
 }
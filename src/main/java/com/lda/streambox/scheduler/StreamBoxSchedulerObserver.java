@@ -0,0 +1,47 @@
+package com.lda.streambox.scheduler;
+
+import com.lda.streambox.port.StreamBoxInput;
+
+/**
+ * Callbacks from {@link StreamBoxScheduler#consume(int)}, e.g. for metrics.
+ * Durations are in nanoseconds; implementations must not block.
+ */
+public interface StreamBoxSchedulerObserver {
+
+    StreamBoxSchedulerObserver NOOP = new StreamBoxSchedulerObserver() {
+    };
+
+    /** A batch was locked: {@code size} rows out of {@code limit}. */
+    default void onLock(long nanos, int size, int limit) {
+    }
+
+    /**
+     * {@code count} rows were handled in one call: a single {@code doHandle}, or a batch / key
+     * lane on the {@code StreamBoxBatchInput} path.
+     */
+    default void onHandle(long nanos, int count) {
+    }
+
+    /** {@code count} handled rows were finished in one update. */
+    default void onFinish(long nanos, int count) {
+    }
+
+    /** {@code count} rows failed and were scheduled for another attempt. */
+    default void onFailure(int count) {
+    }
+
+    /** {@code count} rows failed their last attempt and were moved to DEAD. */
+    default void onDead(int count) {
+    }
+
+    /**
+     * Creates the observer of each scheduler registered by the auto-configuration.
+     */
+    interface Factory {
+        StreamBoxSchedulerObserver create(String name, String type, StreamBoxInput<?> input);
+
+        /** Called once with the retention job when retention is enabled. */
+        default void onRetention(StreamBoxRetentionJob retention) {
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.lda.streambox.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Plans one {@link StreamBoxScheduler} on a {@link TaskScheduler}, either at a fixed rate
+ * or adaptively: full batches are drained back to back within a time budget, empty
+ * batches double the delay up to the max interval.
+ * <p>
+ * Each run schedules the next one, so {@link #wakeUp()} can pull the next run forward.
+ */
+@Slf4j
+public class StreamBoxSchedulerTask {
+
+    private static final Duration STOP_TIMEOUT = Duration.ofSeconds(30);
+
+    private final StreamBoxScheduler<?> scheduler;
+    private final TaskScheduler taskScheduler;
+    private final StreamBoxSchedulersProperties.Mode mode;
+    private final int limit;
+    private final Duration initialDelay;
+    private final Duration fixedRate;
+    private final Duration minInterval;
+    private final Duration maxInterval;
+    private final Duration drainBudget;
+
+    private volatile boolean running = false;
+    // Guarded by this: a run only proceeds if its generation is still the current one.
+    private long generation = 0;
+    private ScheduledFuture<?> future;
+    private boolean draining = false;
+    private boolean wakeRequested = false;
+    private Duration currentDelay;
+
+    public StreamBoxSchedulerTask(
+            StreamBoxScheduler<?> scheduler,
+            TaskScheduler taskScheduler,
+            StreamBoxSchedulersProperties.ScheduleConfig config) {
+        this.scheduler = scheduler;
+        this.taskScheduler = taskScheduler;
+        this.mode = config.getMode();
+        this.limit = config.getLimit();
+        this.initialDelay = StreamBoxSchedulersProperties.parseDuration(config.getInitialDelay());
+        this.fixedRate = StreamBoxSchedulersProperties.parseDuration(config.getFixedRate());
+        this.minInterval = StreamBoxSchedulersProperties.parseDuration(config.getMinInterval());
+        this.maxInterval = StreamBoxSchedulersProperties.parseDuration(config.getMaxInterval());
+        this.drainBudget = StreamBoxSchedulersProperties.parseDuration(config.getDrainBudget());
+        this.currentDelay = minInterval;
+    }
+
+    public synchronized void start() {
+        running = true;
+        scheduleNext(initialDelay);
+    }
+
+    /**
+     * Cancels the next run and waits (bounded) for an in-flight one, so it does not outlive
+     * the resources it uses on shutdown.
+     */
+    public synchronized void stop() {
+        running = false;
+        generation++;
+        if (future != null) {
+            future.cancel(false);
+        }
+        final long deadline = System.nanoTime() + STOP_TIMEOUT.toNanos();
+        try {
+            while (draining) {
+                final long left = deadline - System.nanoTime();
+                if (left <= 0) {
+                    log.warn("StreamBox run still in progress after {}", STOP_TIMEOUT);
+                    return;
+                }
+                wait(Math.max(1, left / 1_000_000));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs the scheduler as soon as possible instead of waiting for the next tick.
+     * Wake-ups arriving during a run trigger exactly one extra run right after it.
+     */
+    public synchronized void wakeUp() {
+        if (!running) return;
+        if (draining) {
+            wakeRequested = true;
+            return;
+        }
+        if (future != null) {
+            future.cancel(false);
+        }
+        scheduleNext(Duration.ZERO);
+    }
+
+    // Caller holds the monitor.
+    private void scheduleNext(Duration delay) {
+        final long scheduledGeneration = ++generation;
+        future = taskScheduler.schedule(() -> run(scheduledGeneration), Instant.now().plus(delay));
+    }
+
+    private void run(long scheduledGeneration) {
+        synchronized (this) {
+            if (!running || scheduledGeneration != generation) return;
+            draining = true;
+            wakeRequested = false;
+        }
+        Duration next;
+        try {
+            next = mode == StreamBoxSchedulersProperties.Mode.ADAPTIVE ? drainOnce() : tickOnce();
+        } catch (RuntimeException e) {
+            log.error("StreamBox poll failed", e);
+            next = mode == StreamBoxSchedulersProperties.Mode.ADAPTIVE ? backoff() : fixedRate;
+        }
+        synchronized (this) {
+            draining = false;
+            notifyAll();
+            if (running) {
+                scheduleNext(wakeRequested ? Duration.ZERO : next);
+            }
+        }
+    }
+
+    private Duration tickOnce() {
+        final long started = System.nanoTime();
+        scheduler.consume(limit);
+        Duration remaining = fixedRate.minusNanos(System.nanoTime() - started);
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    private Duration drainOnce() {
+        final long deadline = System.nanoTime() + drainBudget.toNanos();
+        int handled;
+        do {
+            handled = scheduler.consume(limit);
+        } while (handled >= limit && running && System.nanoTime() - deadline < 0);
+
+        if (handled >= limit) {
+            // Budget spent on a still-full table: yield the thread and come right back.
+            currentDelay = minInterval;
+            return Duration.ZERO;
+        }
+        if (handled > 0) {
+            currentDelay = minInterval;
+            return minInterval;
+        }
+        return backoff();
+    }
+
+    private Duration backoff() {
+        Duration delay = currentDelay;
+        Duration doubled = currentDelay.multipliedBy(2);
+        currentDelay = doubled.compareTo(maxInterval) > 0 ? maxInterval : doubled;
+        return delay;
+    }
+}
@@ -4,6 +4,7 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -16,6 +17,12 @@ public class StreamBoxSchedulersProperties {
     /** Global on/off switch for all auto-registered schedulers. */
     private boolean enabled = false;
 
+    /** Threads of the task scheduler shared by the SHARED-executor instances (and lease/reaper jobs). */
+    private int poolSize = 4;
+
+    /** Identity of this node in the partition lease table, hostname plus a random suffix when unset. */
+    private String nodeId;
+
     /** Global defaults applied to all scheduler instances unless overridden. */
     private ScheduleConfig defaults = ScheduleConfig.defaults();
 
@@ -31,6 +38,43 @@ public class StreamBoxSchedulersProperties {
      */
     private Map<String, ScheduleConfig> instances = new HashMap<>();
 
+    /**
+     * Parses an ISO-8601 duration (PT7S) or a millis string (e.g., "7000").
+     */
+    public static Duration parseDuration(String value) {
+        if (value == null || value.isBlank()) return Duration.ofSeconds(7);
+        if (Character.isDigit(value.charAt(0))) {
+            return Duration.ofMillis(Long.parseLong(value));
+        }
+        return Duration.parse(value);
+    }
+
+    /** How a scheduler instance polls its table. */
+    public enum Mode {
+        /** One batch every fixed-rate tick. */
+        FIXED,
+        /** Drain full batches back to back, back off exponentially while idle. */
+        ADAPTIVE
+    }
+
+    /** Threads running a scheduler instance's polls. */
+    public enum Executor {
+        /** The shared streambox task scheduler (pool-size threads for all instances). */
+        SHARED,
+        /** A platform thread pool of its own, sized by the instance pool-size. */
+        POOL,
+        /** A virtual thread per poll. */
+        VIRTUAL
+    }
+
+    /** How batches are read from the table. */
+    public enum Fetch {
+        /** Native query returning managed entities. */
+        JPA,
+        /** Plain JDBC mapped to detached entities, no persistence context. */
+        JDBC
+    }
+
     /** Small value object representing schedule parameters. */
     @Data
     @Validated
@@ -51,7 +95,154 @@ public class StreamBoxSchedulersProperties {
          */
         private int limit = 100;
 
-        public static ScheduleConfig defaults() { return new ScheduleConfig(); }
+        /**
+         * Polling mode, FIXED uses fixed-rate, ADAPTIVE uses the interval/budget settings below.
+         */
+        private Mode mode;
+
+        /**
+         * ADAPTIVE: delay after a partial batch, and first step of the idle backoff.
+         */
+        private String minInterval;
+
+        /**
+         * ADAPTIVE: upper bound of the idle backoff.
+         */
+        private String maxInterval;
+
+        /**
+         * ADAPTIVE: how long full batches are drained back to back before yielding the thread.
+         */
+        private String drainBudget;
+
+        /**
+         * Wake the scheduler right after a transaction that added events commits,
+         * the regular poll then only acts as a recovery sweeper.
+         */
+        private Boolean immediateDispatch;
+
+        /**
+         * Max number of ordering keys handled concurrently (virtual threads) within a batch.
+         * 1 handles the batch serially.
+         */
+        private int parallelism;
+
+        /**
+         * Attempts before a failing row is moved to DEAD.
+         */
+        private int maxAttempts;
+
+        /**
+         * Delay after the first failed attempt, doubled after each further one.
+         */
+        private String retryBackoff;
+
+        /**
+         * Upper bound of the retry delay.
+         */
+        private String maxRetryBackoff;
+
+        /**
+         * Poll only the partitions leased by this node (see streambox_lease), instead of the whole table.
+         */
+        private Boolean partitioned;
+
+        /**
+         * Partitioned mode: number of leasable buckets, at most 256. Fixed per queue once in use.
+         */
+        private int partitions;
+
+        /**
+         * Partitioned mode: lease duration, renewed every third of it.
+         */
+        private String leaseDuration;
+
+        /**
+         * Claim rows (IN_PROGRESS with owner and lease) in a short transaction and handle them
+         * outside of it, instead of holding the row locks for the whole batch.
+         */
+        private Boolean claim;
+
+        /**
+         * Claim mode: how long a claim holds before the reaper gives the row back to PENDING.
+         * Keep it well above the slowest batch.
+         */
+        private String claimLease;
+
+        /**
+         * Threads of this instance: SHARED with the other instances, or its own POOL / VIRTUAL
+         * executor so a slow table cannot delay the others.
+         */
+        private Executor executor;
+
+        /**
+         * POOL executor: number of platform threads, defaults to the number of workers.
+         */
+        private int poolSize;
+
+        /**
+         * Number of tasks polling this input concurrently. Above 1 implies claim mode, so
+         * workers never handle the same rows.
+         */
+        private int workers;
+
+        /**
+         * Outbox only, hybrid mode: committed events go straight to the adapter's local handlers
+         * in memory, the poller only picks up the rows this fast path missed.
+         */
+        private Boolean localDispatch;
+
+        /**
+         * Local dispatch: max events waiting in memory, later ones are left to the poller.
+         */
+        private int localQueueCapacity;
+
+        /**
+         * Local dispatch: how long the poller leaves a fast-path row alone before taking it over.
+         */
+        private String localGrace;
+
+        /**
+         * JPA (managed entities) or JDBC (base columns only, no persistence context, for large limits).
+         */
+        private Fetch fetch;
+
+        /**
+         * JDBC fetch: rows per round trip of the result set, 0 for the driver default.
+         */
+        private int fetchSize;
+
+        /**
+         * Bean name of the transaction manager of this input's tables, as in
+         * {@code @Transactional(transactionManager = ...)}; the primary one when unset. The lease
+         * tables and JDBC fetch use its DataSource.
+         */
+        private String transactionManager;
+
+        public static ScheduleConfig defaults() {
+            ScheduleConfig config = new ScheduleConfig();
+            config.setMode(Mode.FIXED);
+            config.setMinInterval("PT0.1S");
+            config.setMaxInterval("PT30S");
+            config.setDrainBudget("PT5S");
+            config.setImmediateDispatch(false);
+            config.setParallelism(1);
+            config.setMaxAttempts(10);
+            config.setRetryBackoff("PT1S");
+            config.setMaxRetryBackoff("PT10M");
+            config.setPartitioned(false);
+            config.setPartitions(16);
+            config.setLeaseDuration("PT15S");
+            config.setClaim(false);
+            config.setClaimLease("PT5M");
+            config.setExecutor(Executor.SHARED);
+            config.setWorkers(1);
+            config.setLocalDispatch(false);
+            config.setLocalQueueCapacity(10_000);
+            config.setLocalGrace("PT5S");
+            config.setFetch(Fetch.JPA);
+            return config;
+        }
 
     }
-}
\ No newline at end of file
+}
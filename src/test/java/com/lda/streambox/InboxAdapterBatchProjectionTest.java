@@ -0,0 +1,174 @@
+package com.lda.streambox;
+
+import com.lda.streambox.anotation.StreamBoxType;
+import com.lda.streambox.factory.InboxFactoryAbstract;
+import com.lda.streambox.json.JsonConverter;
+import com.lda.streambox.model.StreamBoxEvent;
+import com.lda.streambox.port.StreamBoxBatchProjection;
+import com.lda.streambox.register.StreamBoxEventRegistry;
+import com.lda.streambox.support.TestChangeEvent;
+import com.lda.streambox.support.TestQueueEntity;
+import com.lda.streambox.support.TestSnapshotEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Batch path of {@link InboxAdapter}: the projection "writes" go to the current
+ * transaction and only reach {@code applied} on commit.
+ */
+class InboxAdapterBatchProjectionTest {
+
+    private final JsonConverter jsonConverter = new JsonConverter(new ObjectMapper());
+    private final List<List<StreamBoxEvent>> calls = new ArrayList<>();
+    private final List<StreamBoxEvent> applied = new ArrayList<>();
+    private final List<StreamBoxEvent> uncommitted = new ArrayList<>();
+    private final List<String> transactions = new ArrayList<>();
+    private final List<UUID> handled = new ArrayList<>();
+    private final List<UUID> failed = new ArrayList<>();
+    private ProjectionInbox inbox;
+
+    @BeforeEach
+    void createInbox() {
+        inbox = new ProjectionInbox();
+        inbox.setTransactionManager(new RecordingTransactionManager());
+    }
+
+    @Test
+    void batchIsProjectedWithOneCallPerTypeInCreatedAtOrder() {
+        final TestQueueEntity snapshot1 = snapshot("p-1", 1);
+        final TestQueueEntity change2 = change("p-2", 5);
+        final TestQueueEntity snapshot3 = snapshot("p-3", 3);
+        final TestQueueEntity change4 = change("p-4", 7);
+
+        inbox.doHandleBatch(List.of(snapshot1, change2, snapshot3, change4), handled, failed);
+
+        assertThat(calls).containsExactly(
+                List.of(new TestSnapshotEvent("p-1", 1), new TestSnapshotEvent("p-3", 3)),
+                List.of(new TestChangeEvent("p-2", 5), new TestChangeEvent("p-4", 7)));
+        assertThat(transactions).containsExactly("commit", "commit");
+        assertThat(handled).containsExactlyInAnyOrder(snapshot1.getId(), change2.getId(), snapshot3.getId(), change4.getId());
+        assertThat(failed).isEmpty();
+    }
+
+    @Test
+    void keyMixingTypesKeepsTheWholeBatchInOneCall() {
+        final List<TestQueueEntity> batch = List.of(snapshot("p-1", 1), change("p-1", 2), snapshot("p-2", 3));
+
+        inbox.doHandleBatch(batch, handled, failed);
+
+        assertThat(calls).containsExactly(List.of(
+                new TestSnapshotEvent("p-1", 1), new TestChangeEvent("p-1", 2), new TestSnapshotEvent("p-2", 3)));
+        assertThat(handled).hasSize(3);
+    }
+
+    @Test
+    void failedCallIsRolledBackThenReplayedOneByOne() {
+        final TestQueueEntity good = snapshot("p-1", 1);
+        final TestQueueEntity poison = snapshot("p-2", -1);
+        final TestQueueEntity afterPoison = snapshot("p-2", 2);
+        final TestQueueEntity otherKey = snapshot("p-3", 3);
+
+        inbox.doHandleBatch(List.of(good, poison, afterPoison, otherKey), handled, failed);
+
+        // The batch call, then one transaction per replayed event; the row after the poison waits.
+        assertThat(transactions).containsExactly("rollback", "commit", "rollback", "commit");
+        assertThat(applied).containsExactly(new TestSnapshotEvent("p-1", 1), new TestSnapshotEvent("p-3", 3));
+        assertThat(handled).containsExactly(good.getId(), otherKey.getId());
+        assertThat(failed).containsExactly(poison.getId());
+    }
+
+    @Test
+    void undecodableRowFailsAloneAndHoldsBackItsKey() {
+        final TestQueueEntity broken = snapshot("p-1", 1);
+        broken.setPayload("not json");
+        final TestQueueEntity sameKey = snapshot("p-1", 2);
+        final TestQueueEntity otherKey = snapshot("p-2", 3);
+
+        inbox.doHandleBatch(List.of(broken, sameKey, otherKey), handled, failed);
+
+        assertThat(calls).containsExactly(List.of(new TestSnapshotEvent("p-2", 3)));
+        assertThat(failed).containsExactly(broken.getId());
+        assertThat(handled).containsExactly(otherKey.getId());
+    }
+
+    private static TestQueueEntity snapshot(String key, int quantity) {
+        return row("TestSnapshotEvent", key, "{\"key\":\"" + key + "\",\"quantity\":" + quantity + "}");
+    }
+
+    private static TestQueueEntity change(String key, int delta) {
+        return row("TestChangeEvent", key, "{\"key\":\"" + key + "\",\"delta\":" + delta + "}");
+    }
+
+    private static TestQueueEntity row(String type, String key, String payload) {
+        final TestQueueEntity entity = TestQueueEntity.of(type, key);
+        entity.setId(UUID.randomUUID());
+        entity.setPayload(payload);
+        return entity;
+    }
+
+    private class ProjectionInbox extends InboxAdapter<TestQueueEntity, StreamBoxEvent>
+            implements StreamBoxBatchProjection<TestQueueEntity, StreamBoxEvent> {
+
+        ProjectionInbox() {
+            super(InboxAdapterBatchProjectionTest.this.jsonConverter, null,
+                    new InboxFactoryAbstract<>(
+                            new StreamBoxEventRegistry(List.of("com.lda.streambox.support"), StreamBoxType.INBOX),
+                            TestQueueEntity.class) {
+                    });
+        }
+
+        @Override
+        public void handleProjections(List<StreamBoxEvent> events) {
+            calls.add(List.copyOf(events));
+            events.forEach(this::handleProjection);
+        }
+
+        @Override
+        protected void handleProjection(StreamBoxEvent event) {
+            uncommitted.add(event);
+            if (event instanceof TestSnapshotEvent snapshot && snapshot.quantity() < 0) {
+                throw new IllegalArgumentException("negative quantity");
+            }
+        }
+
+        @Override
+        public void doHandle(TestQueueEntity streamBoxEntity) {
+            this.handleEvent(streamBoxEntity);
+        }
+    }
+
+    private class RecordingTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            uncommitted.clear();
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            transactions.add("commit");
+            applied.addAll(uncommitted);
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            transactions.add("rollback");
+            uncommitted.clear();
+        }
+    }
+}
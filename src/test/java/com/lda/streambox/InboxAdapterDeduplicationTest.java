@@ -0,0 +1,103 @@
+package com.lda.streambox;
+
+import com.lda.streambox.anotation.StreamBoxType;
+import com.lda.streambox.factory.InboxFactoryAbstract;
+import com.lda.streambox.ingest.StreamBoxGroupCommitWriter;
+import com.lda.streambox.ingest.StreamBoxWindowedDeduplicator;
+import com.lda.streambox.json.JsonConverter;
+import com.lda.streambox.model.StreamBoxEnvelope;
+import com.lda.streambox.model.StreamBoxEvent;
+import com.lda.streambox.model.StreamBoxRawPayload;
+import com.lda.streambox.register.StreamBoxEventRegistry;
+import com.lda.streambox.repository.StreamBoxRepository;
+import com.lda.streambox.support.TestQueueEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InboxAdapterDeduplicationTest {
+
+    private final AtomicInteger inserts = new AtomicInteger();
+    private final StreamBoxWindowedDeduplicator dedup = new StreamBoxWindowedDeduplicator(100, Duration.ofMinutes(1));
+    private final TestInbox inbox = new TestInbox(rejectingRepository());
+
+    @Test
+    void messageRejectedByTheUniqueConstraintIsMarkedSeen() {
+        final StreamBoxEnvelope envelope = envelope();
+
+        assertThatThrownBy(() -> inbox.addFromConsumer(envelope)).isInstanceOf(DataIntegrityViolationException.class);
+        inbox.addFromConsumer(envelope);
+
+        assertThat(inserts).hasValue(1);
+        assertThat(dedup.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    void messageRejectedInAGroupCommitIsMarkedSeen() {
+        final StreamBoxEnvelope envelope = envelope();
+        try (var writer = new StreamBoxGroupCommitWriter<>(inbox.inBoxRepository, 10, Duration.ofMillis(5), 10)) {
+            inbox.setGroupCommitWriter(writer);
+
+            final CompletableFuture<TestQueueEntity> first = inbox.addFromConsumerAsync(envelope);
+
+            assertThat(first).failsWithin(Duration.ofSeconds(5));
+            assertThat(inbox.addFromConsumerAsync(envelope).join()).isNull();
+        }
+        assertThat(dedup.getHits()).isEqualTo(1);
+    }
+
+    private StreamBoxRepository<TestQueueEntity> rejectingRepository() {
+        return (StreamBoxRepository<TestQueueEntity>) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[]{StreamBoxRepository.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().startsWith("save")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    inserts.incrementAndGet();
+                    throw new DataIntegrityViolationException("duplicate refOutbox");
+                });
+    }
+
+    private static StreamBoxEnvelope envelope() {
+        return StreamBoxEnvelope.builder()
+                .id(UUID.randomUUID())
+                .type("TestSnapshotEvent")
+                .createdAt(Instant.now())
+                .partitionKey("p-1")
+                .payload(StreamBoxRawPayload.of("{\"key\":\"p-1\",\"quantity\":1}"))
+                .build();
+    }
+
+    private class TestInbox extends InboxAdapter<TestQueueEntity, StreamBoxEvent> {
+
+        TestInbox(StreamBoxRepository<TestQueueEntity> repository) {
+            super(new JsonConverter(new ObjectMapper()), repository,
+                    new InboxFactoryAbstract<>(
+                            new StreamBoxEventRegistry(List.of("com.lda.streambox.support"), StreamBoxType.INBOX),
+                            TestQueueEntity.class) {
+                    });
+            setDeduplicator(dedup);
+        }
+
+        @Override
+        protected void handleProjection(StreamBoxEvent event) {
+        }
+
+        @Override
+        public void doHandle(TestQueueEntity streamBoxEntity) {
+            this.handleEvent(streamBoxEntity);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.lda.streambox;
+
+import com.lda.streambox.json.JsonConverter;
+import com.lda.streambox.model.StreamBoxEvent;
+import com.lda.streambox.support.TestQueueEntity;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutboxAdapterBatchSendTest {
+
+    private final JsonConverter jsonConverter = new JsonConverter(new ObjectMapper());
+    private final List<UUID> sent = new ArrayList<>();
+    private final List<UUID> handled = new ArrayList<>();
+    private final List<UUID> failed = new ArrayList<>();
+    private final RecordingOutbox outbox = new RecordingOutbox();
+
+    @Test
+    void unserializableRowFailsAloneAndHoldsBackItsKey() {
+        final TestQueueEntity poison = row("p-1");
+        poison.setPayload(null);
+        poison.setPayloadCodec("unknown");
+        poison.setPayloadBin(new byte[]{1});
+        final TestQueueEntity sameKey = row("p-1");
+        final TestQueueEntity otherKey = row("p-2");
+        final TestQueueEntity keyless = row(null);
+
+        outbox.doHandleBatch(List.of(poison, sameKey, otherKey, keyless), handled, failed);
+
+        assertThat(failed).containsExactly(poison.getId());
+        assertThat(sent).containsExactly(otherKey.getId(), keyless.getId());
+        assertThat(handled).containsExactly(otherKey.getId(), keyless.getId());
+    }
+
+    @Test
+    void firstUndeliveredRowFailsAndTheRestStayPending() {
+        final List<TestQueueEntity> batch = List.of(row("p-1"), row("p-2"), row("p-3"));
+        outbox.deliverable = 1;
+
+        outbox.doHandleBatch(batch, handled, failed);
+
+        assertThat(handled).containsExactly(batch.get(0).getId());
+        assertThat(failed).containsExactly(batch.get(1).getId());
+    }
+
+    private TestQueueEntity row(String partitionKey) {
+        final TestQueueEntity entity = TestQueueEntity.of("TestChangeEvent", partitionKey);
+        entity.setId(UUID.randomUUID());
+        return entity;
+    }
+
+    private class RecordingOutbox extends OutboxAdapter<TestQueueEntity, StreamBoxEvent> {
+
+        private int deliverable = Integer.MAX_VALUE;
+
+        RecordingOutbox() {
+            super(OutboxAdapterBatchSendTest.this.jsonConverter, null, null);
+        }
+
+        @Override
+        protected void sendToMessaging(String json) {
+            if (sent.size() == deliverable) {
+                throw new IllegalStateException("broker down");
+            }
+            sent.add(jsonConverter.fromEnvelope(json).id());
+        }
+
+        @Override
+        public void doHandle(TestQueueEntity streamBoxEntity) {
+            this.handleEvent(streamBoxEntity);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.lda.streambox;
+
+import com.lda.streambox.anotation.StreamBoxType;
+import com.lda.streambox.json.JsonConverter;
+import com.lda.streambox.model.StreamBoxEvent;
+import com.lda.streambox.register.StreamBoxEventRegistry;
+import com.lda.streambox.support.TestQueueEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutboxAdapterCoalescingTest {
+
+    private final JsonConverter jsonConverter = new JsonConverter(new ObjectMapper());
+    private final List<UUID> sent = new ArrayList<>();
+    private final List<UUID> handled = new ArrayList<>();
+    private final List<UUID> failed = new ArrayList<>();
+    private RecordingOutbox outbox;
+
+    @BeforeEach
+    void createOutbox() {
+        outbox = new RecordingOutbox();
+        outbox.setStreamBoxEventRegistry(new StreamBoxEventRegistry(List.of("com.lda.streambox.support"), StreamBoxType.OUTBOX));
+    }
+
+    @Test
+    void onlyTheNewestSnapshotOfAKeyIsSent() {
+        final TestQueueEntity oldSnapshot = row("TestSnapshotEvent", "p-1");
+        final TestQueueEntity change = row("TestChangeEvent", "p-1");
+        final TestQueueEntity otherKey = row("TestSnapshotEvent", "p-2");
+        final TestQueueEntity newSnapshot = row("TestSnapshotEvent", "p-1");
+
+        outbox.doHandleBatch(List.of(oldSnapshot, change, otherKey, newSnapshot), handled, failed);
+
+        assertThat(sent).containsExactly(change.getId(), otherKey.getId(), newSnapshot.getId());
+        assertThat(handled).containsExactlyInAnyOrder(
+                oldSnapshot.getId(), change.getId(), otherKey.getId(), newSnapshot.getId());
+        assertThat(failed).isEmpty();
+    }
+
+    @Test
+    void keylessAndNonCollapsibleEventsAreAlwaysSent() {
+        final List<TestQueueEntity> batch = List.of(
+                row("TestSnapshotEvent", null),
+                row("TestSnapshotEvent", null),
+                row("TestChangeEvent", "p-1"),
+                row("TestChangeEvent", "p-1"));
+
+        outbox.doHandleBatch(batch, handled, failed);
+
+        assertThat(sent).containsExactlyElementsOf(batch.stream().map(TestQueueEntity::getId).toList());
+    }
+
+    @Test
+    void supersededRowsAreFinishedEvenWhenTheSendFails() {
+        final TestQueueEntity oldSnapshot = row("TestSnapshotEvent", "p-1");
+        final TestQueueEntity newSnapshot = row("TestSnapshotEvent", "p-1");
+        outbox.failSends = true;
+
+        outbox.doHandleBatch(List.of(oldSnapshot, newSnapshot), handled, failed);
+
+        assertThat(sent).isEmpty();
+        assertThat(handled).containsExactly(oldSnapshot.getId());
+        assertThat(failed).containsExactly(newSnapshot.getId());
+    }
+
+    @Test
+    void nothingIsCoalescedWithoutTheRegistry() {
+        outbox.setStreamBoxEventRegistry(null);
+        final List<TestQueueEntity> batch = List.of(row("TestSnapshotEvent", "p-1"), row("TestSnapshotEvent", "p-1"));
+
+        outbox.doHandleBatch(batch, handled, failed);
+
+        assertThat(sent).containsExactlyElementsOf(batch.stream().map(TestQueueEntity::getId).toList());
+    }
+
+    private TestQueueEntity row(String type, String partitionKey) {
+        final TestQueueEntity entity = TestQueueEntity.of(type, partitionKey);
+        entity.setId(UUID.randomUUID());
+        return entity;
+    }
+
+    private class RecordingOutbox extends OutboxAdapter<TestQueueEntity, StreamBoxEvent> {
+
+        private boolean failSends;
+
+        RecordingOutbox() {
+            super(OutboxAdapterCoalescingTest.this.jsonConverter, null, null);
+        }
+
+        @Override
+        protected void sendToMessaging(String json) {
+            if (failSends) {
+                throw new IllegalStateException("broker down");
+            }
+            sent.add(jsonConverter.fromEnvelope(json).id());
+        }
+
+        @Override
+        public void doHandle(TestQueueEntity streamBoxEntity) {
+            this.handleEvent(streamBoxEntity);
+        }
+    }
+}
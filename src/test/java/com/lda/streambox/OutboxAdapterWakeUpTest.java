@@ -0,0 +1,119 @@
+package com.lda.streambox;
+
+import com.lda.streambox.json.JsonConverter;
+import com.lda.streambox.model.StreamBoxEvent;
+import com.lda.streambox.repository.StreamBoxRepository;
+import com.lda.streambox.scheduler.StreamBoxScheduler;
+import com.lda.streambox.scheduler.StreamBoxSchedulerRegistry;
+import com.lda.streambox.support.TestChangeEvent;
+import com.lda.streambox.support.TestQueueEntity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tools.jackson.databind.ObjectMapper;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Immediate dispatch: {@code addEvent} wakes the outbox scheduler up once the transaction commits.
+ */
+class OutboxAdapterWakeUpTest {
+
+    private final AtomicInteger wakeUps = new AtomicInteger();
+    private final JsonConverter jsonConverter = new JsonConverter(new ObjectMapper());
+    private TestOutbox outbox;
+
+    @BeforeEach
+    void createOutbox() {
+        final StreamBoxScheduler<TestQueueEntity> scheduler = new StreamBoxScheduler<>(null);
+        scheduler.onWakeUp(wakeUps::incrementAndGet);
+        final StreamBoxSchedulerRegistry registry = new StreamBoxSchedulerRegistry();
+        registry.register("testOutbox", scheduler);
+        outbox = new TestOutbox();
+        outbox.setBeanName("testOutbox");
+        outbox.setStreamBoxSchedulerRegistry(registry);
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void eventsOfOneTransactionWakeTheSchedulerOnceAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        outbox.addEvent(new TestChangeEvent("p-1", 1));
+        outbox.addEvent(new TestChangeEvent("p-1", 2));
+
+        assertThat(wakeUps).hasValue(0);
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertThat(wakeUps).hasValue(1);
+    }
+
+    @Test
+    void rolledBackTransactionDoesNotWakeTheScheduler() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        outbox.addEvent(new TestChangeEvent("p-1", 1));
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(wakeUps).hasValue(0);
+    }
+
+    @Test
+    void eventOutsideATransactionWakesTheSchedulerRightAway() {
+        outbox.addEvent(new TestChangeEvent("p-1", 1));
+
+        assertThat(wakeUps).hasValue(1);
+    }
+
+    private static void complete(int status) {
+        final var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static StreamBoxRepository<TestQueueEntity> savingRepository() {
+        return (StreamBoxRepository<TestQueueEntity>) Proxy.newProxyInstance(
+                OutboxAdapterWakeUpTest.class.getClassLoader(),
+                new Class<?>[]{StreamBoxRepository.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("save")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    return args[0];
+                });
+    }
+
+    private class TestOutbox extends OutboxAdapter<TestQueueEntity, StreamBoxEvent> {
+
+        TestOutbox() {
+            super(OutboxAdapterWakeUpTest.this.jsonConverter, savingRepository(), (wrapper, converter) -> {
+                final TestQueueEntity entity = TestQueueEntity.of(wrapper.type(), null);
+                entity.setPayload(converter.toJson(wrapper.payload()));
+                return entity;
+            });
+        }
+
+        @Override
+        protected void sendToMessaging(String json) {
+        }
+
+        @Override
+        public void doHandle(TestQueueEntity streamBoxEntity) {
+            this.handleEvent(streamBoxEntity);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.lda.streambox;
+
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+
+/**
+ * Boot configuration of the repository tests, whose entity and repository live in
+ * {@code com.lda.streambox.support}.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+public class StreamBoxTestApplication {
+}
@@ -0,0 +1,183 @@
+package com.lda.streambox.ingest;
+
+import com.lda.streambox.repository.StreamBoxRepository;
+import com.lda.streambox.support.TestQueueEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StreamBoxGroupCommitWriterTest {
+
+    private final List<Integer> groups = new CopyOnWriteArrayList<>();
+    private final List<UUID> saved = new CopyOnWriteArrayList<>();
+    private final Set<UUID> rejected = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger calls = new AtomicInteger();
+    private volatile CountDownLatch saveGate = new CountDownLatch(0);
+
+    @Test
+    void fullGroupIsSavedWithoutWaitingForTheLatency() {
+        try (var writer = new StreamBoxGroupCommitWriter<>(repository(), 3, Duration.ofMinutes(1), 10)) {
+            final List<CompletableFuture<TestQueueEntity>> futures = List.of(
+                    writer.submit(row()), writer.submit(row()), writer.submit(row()));
+
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).orTimeout(5, TimeUnit.SECONDS).join();
+        }
+        assertThat(groups).containsExactly(3);
+    }
+
+    @Test
+    void partialGroupIsSavedOnceTheOldestWaitedMaxLatency() {
+        try (var writer = new StreamBoxGroupCommitWriter<>(repository(), 100, Duration.ofMillis(50), 10)) {
+            final TestQueueEntity row = row();
+
+            assertThat(writer.submit(row).orTimeout(5, TimeUnit.SECONDS).join()).isSameAs(row);
+        }
+        assertThat(groups).containsExactly(1);
+    }
+
+    @Test
+    void submitBlocksWhileTheQueueIsFull() throws InterruptedException {
+        saveGate = new CountDownLatch(1);
+        try (var writer = new StreamBoxGroupCommitWriter<>(repository(), 1, Duration.ZERO, 1)) {
+            try {
+                final CompletableFuture<TestQueueEntity> inFlight = writer.submit(row());
+                waitUntil(() -> calls.get() == 1);
+                writer.submit(row());
+
+                final CompletableFuture<CompletableFuture<TestQueueEntity>> blocked =
+                        CompletableFuture.supplyAsync(() -> writer.submit(row()));
+                Thread.sleep(100);
+                assertThat(blocked).isNotDone();
+
+                saveGate.countDown();
+                blocked.orTimeout(5, TimeUnit.SECONDS).join().orTimeout(5, TimeUnit.SECONDS).join();
+                assertThat(inFlight).isCompleted();
+            } finally {
+                saveGate.countDown();
+            }
+        }
+        assertThat(saved).hasSize(3);
+    }
+
+    @Test
+    void failedGroupIsRetriedRowByRowSoOnlyTheFaultyRowFails() {
+        final TestQueueEntity good = row();
+        final TestQueueEntity faulty = row();
+        rejected.add(faulty.getId());
+        final CompletableFuture<TestQueueEntity> goodFuture;
+        final CompletableFuture<TestQueueEntity> faultyFuture;
+        try (var writer = new StreamBoxGroupCommitWriter<>(repository(), 2, Duration.ofMinutes(1), 10)) {
+            goodFuture = writer.submit(good);
+            faultyFuture = writer.submit(faulty);
+        }
+
+        assertThat(goodFuture.join()).isSameAs(good);
+        assertThatThrownBy(faultyFuture::join).hasCauseInstanceOf(DataIntegrityViolationException.class);
+        assertThat(saved).containsExactly(good.getId());
+    }
+
+    @Test
+    void closeFlushesQueuedRowsWithoutWaitingForTheLatencyThenRejectsNewOnes() {
+        final StreamBoxGroupCommitWriter<TestQueueEntity> writer =
+                new StreamBoxGroupCommitWriter<>(repository(), 100, Duration.ofMinutes(1), 10);
+        final CompletableFuture<TestQueueEntity> queued = writer.submit(row());
+
+        final long start = System.nanoTime();
+        writer.close();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+        assertThat(queued).isCompleted();
+        assertThat(saved).hasSize(1);
+        assertThatThrownBy(() -> writer.submit(row())).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void everySubmitRacingWithCloseCompletes() throws InterruptedException {
+        for (int round = 0; round < 20; round++) {
+            final StreamBoxGroupCommitWriter<TestQueueEntity> writer =
+                    new StreamBoxGroupCommitWriter<>(repository(), 8, Duration.ofMillis(1), 4);
+            final List<CompletableFuture<TestQueueEntity>> futures = new CopyOnWriteArrayList<>();
+            final List<Thread> producers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                producers.add(Thread.ofVirtual().start(() -> {
+                    try {
+                        while (true) {
+                            futures.add(writer.submit(row()));
+                        }
+                    } catch (IllegalStateException closed) {
+                        // writer closed
+                    }
+                }));
+            }
+            Thread.sleep(5);
+            writer.close();
+            for (Thread producer : producers) {
+                producer.join();
+            }
+
+            // Saved, or failed as closed: none is left pending.
+            assertThat(futures).allMatch(CompletableFuture::isDone);
+        }
+    }
+
+    private StreamBoxRepository<TestQueueEntity> repository() {
+        return (StreamBoxRepository<TestQueueEntity>) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[]{StreamBoxRepository.class},
+                (proxy, method, args) -> {
+                    calls.incrementAndGet();
+                    saveGate.await();
+                    return switch (method.getName()) {
+                        case "saveAll" -> {
+                            final List<TestQueueEntity> group = new ArrayList<>();
+                            ((Iterable<TestQueueEntity>) args[0]).forEach(group::add);
+                            groups.add(group.size());
+                            if (group.stream().anyMatch(row -> rejected.contains(row.getId()))) {
+                                throw new DataIntegrityViolationException("duplicate refOutbox");
+                            }
+                            group.forEach(row -> saved.add(row.getId()));
+                            yield group;
+                        }
+                        case "save" -> {
+                            final TestQueueEntity row = (TestQueueEntity) args[0];
+                            if (rejected.contains(row.getId())) {
+                                throw new DataIntegrityViolationException("duplicate refOutbox");
+                            }
+                            saved.add(row.getId());
+                            yield row;
+                        }
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    };
+                });
+    }
+
+    private static TestQueueEntity row() {
+        final TestQueueEntity entity = TestQueueEntity.of("TestSnapshotEvent", "p-1");
+        entity.setId(UUID.randomUUID());
+        return entity;
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
@@ -0,0 +1,77 @@
+package com.lda.streambox.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamBoxWindowedDeduplicatorTest {
+
+    @Test
+    void seenIdIsADuplicateAndCountsAsAHit() {
+        final StreamBoxWindowedDeduplicator dedup = new StreamBoxWindowedDeduplicator(100, Duration.ofMinutes(1));
+        final UUID id = UUID.randomUUID();
+
+        assertThat(dedup.isDuplicate(id)).isFalse();
+        dedup.markSeen(id);
+        assertThat(dedup.isDuplicate(id)).isTrue();
+        assertThat(dedup.isDuplicate(UUID.randomUUID())).isFalse();
+
+        assertThat(dedup.getHits()).isEqualTo(1);
+        assertThat(dedup.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void idIsForgottenOnceTheWindowExpires() throws InterruptedException {
+        final StreamBoxWindowedDeduplicator dedup = new StreamBoxWindowedDeduplicator(100, Duration.ofMillis(50));
+        final UUID id = UUID.randomUUID();
+        dedup.markSeen(id);
+
+        Thread.sleep(100);
+
+        assertThat(dedup.isDuplicate(id)).isFalse();
+        dedup.markSeen(UUID.randomUUID());
+        assertThat(dedup.size()).isEqualTo(1);
+    }
+
+    @Test
+    void oldestIdsAreEvictedBeyondMaxEntries() {
+        final StreamBoxWindowedDeduplicator dedup = new StreamBoxWindowedDeduplicator(2, Duration.ofMinutes(1));
+        final UUID first = UUID.randomUUID();
+        dedup.markSeen(first);
+        dedup.markSeen(UUID.randomUUID());
+        dedup.markSeen(UUID.randomUUID());
+
+        assertThat(dedup.size()).isEqualTo(2);
+        assertThat(dedup.isDuplicate(first)).isFalse();
+    }
+
+    @Test
+    void preFilterAnswersFreshIdsAndConfirmsSeenOnes() {
+        final StreamBoxWindowedDeduplicator dedup = new StreamBoxWindowedDeduplicator(1_000, Duration.ofMinutes(1), true);
+        final UUID id = UUID.randomUUID();
+        dedup.markSeen(id);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(dedup.isDuplicate(UUID.randomUUID())).isFalse();
+        }
+        assertThat(dedup.isDuplicate(id)).isTrue();
+        assertThat(dedup.getHits()).isEqualTo(1);
+        assertThat(dedup.getMisses()).isEqualTo(100);
+    }
+
+    @Test
+    void preFilterKeepsIdsAcrossOneRotation() throws InterruptedException {
+        final StreamBoxWindowedDeduplicator dedup = new StreamBoxWindowedDeduplicator(1_000, Duration.ofSeconds(1), true);
+        final UUID id = UUID.randomUUID();
+        Thread.sleep(700);
+        dedup.markSeen(id);
+
+        Thread.sleep(500);
+
+        // The Bloom generation holding the id was rotated to "previous", the cache entry is still live.
+        assertThat(dedup.isDuplicate(id)).isTrue();
+    }
+}
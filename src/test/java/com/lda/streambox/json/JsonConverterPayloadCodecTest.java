@@ -0,0 +1,77 @@
+package com.lda.streambox.json;
+
+import com.lda.streambox.support.TestQueueEntity;
+import com.lda.streambox.support.TestSnapshotEvent;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.ObjectMapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JsonConverterPayloadCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonConverter smile = new JsonConverter(objectMapper, new SmileStreamBoxCodec());
+
+    @Test
+    void binaryCodecStoresThePayloadUnderItsMarker() {
+        final TestQueueEntity entity = entity("{\"key\":\"p-1\",\"quantity\":3}");
+
+        smile.compress(entity);
+
+        assertThat(entity.getPayload()).isNull();
+        assertThat(entity.getPayloadCodec()).isEqualTo(SmileStreamBoxCodec.SMILE);
+        assertThat(entity.getPayloadBin()).isNotEmpty();
+        assertThat(smile.fromPayload(entity, TestSnapshotEvent.class)).isEqualTo(new TestSnapshotEvent("p-1", 3));
+        assertThat(smile.payloadOf(entity)).isEqualTo("{\"key\":\"p-1\",\"quantity\":3}");
+    }
+
+    @Test
+    void envelopeOfABinaryRowCarriesJson() {
+        final TestQueueEntity entity = entity("{\"key\":\"p-1\",\"quantity\":3}");
+        smile.compress(entity);
+
+        final String envelope = smile.toEnvelope(entity);
+
+        assertThat(envelope).contains("\"payload\":{\"key\":\"p-1\",\"quantity\":3}");
+        assertThat(smile.fromJson(smile.fromEnvelope(envelope).payload(), TestSnapshotEvent.class))
+                .isEqualTo(new TestSnapshotEvent("p-1", 3));
+    }
+
+    @Test
+    void textAndGzipRowsStayReadableWithABinaryCodec() {
+        final TestQueueEntity text = entity("{\"key\":\"p-1\",\"quantity\":3}");
+        final TestQueueEntity gzip = entity(StreamBoxPayloadCompressorTest.largePayload());
+        new StreamBoxPayloadCompressor(1024).compress(gzip);
+
+        assertThat(smile.fromPayload(text, TestSnapshotEvent.class)).isEqualTo(new TestSnapshotEvent("p-1", 3));
+        assertThat(smile.payloadOf(gzip)).isEqualTo(StreamBoxPayloadCompressorTest.largePayload());
+    }
+
+    @Test
+    void jsonCodecKeepsTextPayloads() {
+        final JsonConverter json = new JsonConverter(objectMapper, new JacksonStreamBoxCodec(JsonConverter.JSON, objectMapper));
+        final TestQueueEntity entity = entity("{\"key\":\"p-1\",\"quantity\":3}");
+
+        json.compress(entity);
+
+        assertThat(json.payloadCodec()).isSameAs(json.jsonCodec());
+        assertThat(entity.getPayload()).isEqualTo("{\"key\":\"p-1\",\"quantity\":3}");
+        assertThat(entity.getPayloadCodec()).isNull();
+    }
+
+    @Test
+    void binaryRowWithoutItsCodecIsRejected() {
+        final TestQueueEntity entity = entity("{\"key\":\"p-1\",\"quantity\":3}");
+        smile.compress(entity);
+
+        assertThatThrownBy(() -> new JsonConverter(objectMapper).payloadOf(entity))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static TestQueueEntity entity(String payload) {
+        final TestQueueEntity entity = TestQueueEntity.of("TestSnapshotEvent", "p-1");
+        entity.setPayload(payload);
+        return entity;
+    }
+}
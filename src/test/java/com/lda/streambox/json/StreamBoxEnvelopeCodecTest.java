@@ -0,0 +1,105 @@
+package com.lda.streambox.json;
+
+import com.lda.streambox.model.StreamBoxEnvelope;
+import com.lda.streambox.support.TestQueueEntity;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StreamBoxEnvelopeCodecTest {
+
+    private static final String PAYLOAD = "{\"key\":\"p-1\",\"name\":\"café \\\"au lait\\\"\",\"tags\":[1,2]}";
+
+    private final StreamBoxEnvelopeCodec codec = new StreamBoxEnvelopeCodec(new ObjectMapper());
+
+    @Test
+    void stringRoundTripKeepsThePayloadAsWritten() {
+        final TestQueueEntity entity = entity(PAYLOAD);
+
+        final String json = codec.write(entity);
+        final StreamBoxEnvelope envelope = codec.read(json);
+
+        assertThat(json).contains("\"payload\":" + PAYLOAD);
+        assertThat(envelope.id()).isEqualTo(entity.getId());
+        assertThat(envelope.type()).isEqualTo("TestSnapshotEvent");
+        assertThat(envelope.createdAt()).isEqualTo(entity.getCreatedAt());
+        assertThat(envelope.partitionKey()).isEqualTo("p-1");
+        assertThat(envelope.payload().asString()).isEqualTo(PAYLOAD);
+    }
+
+    @Test
+    void byteRoundTripSlicesThePayloadOutOfTheMessage() {
+        final TestQueueEntity entity = entity(PAYLOAD);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        codec.write(entity, out);
+        final byte[] message = out.toByteArray();
+        final StreamBoxEnvelope envelope = codec.read(message);
+
+        assertThat(envelope.payload().hasBytes()).isTrue();
+        assertThat(envelope.payload().bytes()).isSameAs(message);
+        assertThat(envelope.payload().asString()).isEqualTo(PAYLOAD);
+        assertThat(envelope.id()).isEqualTo(entity.getId());
+    }
+
+    @Test
+    void nullPayloadIsWrittenAsJsonNull() {
+        final TestQueueEntity entity = entity(null);
+
+        final String json = codec.write(entity);
+
+        assertThat(json).contains("\"payload\":null");
+        assertThat(codec.read(json).payload()).isNull();
+        assertThat(codec.read(json.getBytes(StandardCharsets.UTF_8)).payload()).isNull();
+    }
+
+    @Test
+    void formerFormatIsStillRead() {
+        final UUID id = UUID.randomUUID();
+        final String json = """
+                {"id":"%s","status":"PENDING","createdAt":1700000000.123456789,"attempts":0,
+                 "type":"TestSnapshotEvent","payload":"{\\"key\\":\\"p-1\\"}","refOutbox":{"nested":[1]}}
+                """.formatted(id);
+
+        final StreamBoxEnvelope envelope = codec.read(json);
+
+        assertThat(envelope.id()).isEqualTo(id);
+        assertThat(envelope.createdAt()).isEqualTo(Instant.ofEpochSecond(1_700_000_000L, 123_456_789));
+        assertThat(envelope.partitionKey()).isNull();
+        assertThat(envelope.payload().asString()).isEqualTo("{\"key\":\"p-1\"}");
+    }
+
+    @Test
+    void stringAndScalarPayloadsKeepTheirJson() {
+        final TestQueueEntity string = entity("\"p-1 \\\"quoted\\\"\"");
+        final TestQueueEntity number = entity("42.5");
+
+        assertThat(codec.read(codec.write(string)).payload().asString()).isEqualTo(string.getPayload());
+        assertThat(codec.read(codec.write(string).getBytes(StandardCharsets.UTF_8)).payload().asString())
+                .isEqualTo(string.getPayload());
+        assertThat(codec.read(codec.write(number)).payload().asString()).isEqualTo("42.5");
+        assertThat(new ObjectMapper().readValue(codec.read(codec.write(string)).payload().asString(), String.class))
+                .isEqualTo("p-1 \"quoted\"");
+    }
+
+    @Test
+    void malformedMessageIsReportedAsAReadFailure() {
+        assertThatThrownBy(() -> codec.read("[\"not an envelope\"]"))
+                .isInstanceOf(JsonConverterFromJsonException.class);
+    }
+
+    private static TestQueueEntity entity(String payload) {
+        final TestQueueEntity entity = TestQueueEntity.of("TestSnapshotEvent", "p-1");
+        entity.setId(UUID.randomUUID());
+        entity.setCreatedAt(Instant.parse("2026-01-02T03:04:05.678901Z"));
+        entity.setPayload(payload);
+        return entity;
+    }
+}
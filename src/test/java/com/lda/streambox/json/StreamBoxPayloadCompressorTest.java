@@ -0,0 +1,70 @@
+package com.lda.streambox.json;
+
+import com.lda.streambox.support.TestQueueEntity;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.ObjectMapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StreamBoxPayloadCompressorTest {
+
+    private final StreamBoxPayloadCompressor compressor = new StreamBoxPayloadCompressor(1024);
+
+    @Test
+    void largePayloadIsStoredCompressedAndReadBack() {
+        final String payload = largePayload();
+        final TestQueueEntity entity = entity(payload);
+
+        compressor.compress(entity);
+
+        assertThat(entity.getPayload()).isNull();
+        assertThat(entity.getPayloadCodec()).isEqualTo(StreamBoxPayloadCompressor.GZIP);
+        assertThat(entity.getPayloadBin().length).isLessThan(payload.length());
+        assertThat(compressor.payloadOf(entity)).isEqualTo(payload);
+        assertThat(StreamBoxPayloadCompressor.decompress(entity.getPayloadCodec(), entity.getPayloadBin())).isEqualTo(payload);
+    }
+
+    @Test
+    void smallPayloadKeepsItsTextColumn() {
+        final TestQueueEntity entity = entity("{\"key\":\"p-1\"}");
+
+        compressor.compress(entity);
+
+        assertThat(entity.getPayload()).isEqualTo("{\"key\":\"p-1\"}");
+        assertThat(entity.getPayloadCodec()).isNull();
+        assertThat(entity.getPayloadBin()).isNull();
+        assertThat(compressor.payloadOf(entity)).isEqualTo("{\"key\":\"p-1\"}");
+    }
+
+    @Test
+    void compressedRowsStayReadableWithCompressionDisabled() {
+        final TestQueueEntity entity = entity(largePayload());
+        compressor.compress(entity);
+        final JsonConverter withoutCompression = new JsonConverter(new ObjectMapper());
+
+        final String envelope = withoutCompression.toEnvelope(entity);
+
+        assertThat(withoutCompression.fromEnvelope(envelope).payload().asString()).isEqualTo(largePayload());
+    }
+
+    @Test
+    void unknownCodecIsRejected() {
+        assertThatThrownBy(() -> StreamBoxPayloadCompressor.decompress("zstd", new byte[]{1}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    static String largePayload() {
+        final StringBuilder json = new StringBuilder("{\"lines\":[");
+        for (int i = 0; i < 200; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"sku\":\"SKU-").append(i).append("\",\"quantity\":").append(i % 7).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static TestQueueEntity entity(String payload) {
+        final TestQueueEntity entity = TestQueueEntity.of("TestSnapshotEvent", "p-1");
+        entity.setPayload(payload);
+        return entity;
+    }
+}
@@ -0,0 +1,125 @@
+package com.lda.streambox.local;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamBoxLocalDispatcherTest {
+
+    private final List<UUID> handled = new CopyOnWriteArrayList<>();
+    private final List<UUID> finished = new CopyOnWriteArrayList<>();
+
+    @Test
+    void rowsAreHandledInOrderAndFinishedOnClose() {
+        final StreamBoxLocalDispatcher dispatcher = new StreamBoxLocalDispatcher("test", 100, finished::addAll);
+        dispatcher.start();
+        final List<UUID> ids = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+        ids.forEach(id -> assertThat(dispatcher.offer(id, () -> handled.add(id))).isTrue());
+        dispatcher.close();
+
+        assertThat(handled).containsExactlyElementsOf(ids);
+        assertThat(finished).containsExactlyElementsOf(ids);
+    }
+
+    @Test
+    void failedHandlingIsLeftToThePoller() {
+        final StreamBoxLocalDispatcher dispatcher = new StreamBoxLocalDispatcher("test", 100, finished::addAll);
+        dispatcher.start();
+        final UUID failing = UUID.randomUUID();
+        final UUID next = UUID.randomUUID();
+
+        dispatcher.offer(failing, () -> {
+            throw new IllegalStateException("handler down");
+        });
+        dispatcher.offer(next, () -> handled.add(next));
+        dispatcher.close();
+
+        assertThat(finished).containsExactly(next);
+    }
+
+    @Test
+    void fullQueueRejectsTheRow() throws InterruptedException {
+        final StreamBoxLocalDispatcher dispatcher = new StreamBoxLocalDispatcher("test", 1, finished::addAll);
+        dispatcher.start();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            dispatcher.offer(UUID.randomUUID(), () -> {
+                started.countDown();
+                awaitQuietly(release);
+            });
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(dispatcher.offer(UUID.randomUUID(), () -> {
+            })).isTrue();
+            assertThat(dispatcher.offer(UUID.randomUUID(), () -> {
+            })).isFalse();
+        } finally {
+            release.countDown();
+            dispatcher.close();
+        }
+        assertThat(finished).hasSize(2);
+    }
+
+    @Test
+    void stoppedDispatcherRejectsRows() {
+        final StreamBoxLocalDispatcher dispatcher = new StreamBoxLocalDispatcher("test", 10, finished::addAll);
+
+        assertThat(dispatcher.offer(UUID.randomUUID(), () -> {
+        })).isFalse();
+        dispatcher.start();
+        dispatcher.close();
+
+        assertThat(dispatcher.isRunning()).isFalse();
+        assertThat(dispatcher.offer(UUID.randomUUID(), () -> {
+        })).isFalse();
+    }
+
+    @Test
+    void failedFinishDoesNotStopTheDispatcher() {
+        final AtomicInteger finishCalls = new AtomicInteger();
+        final StreamBoxLocalDispatcher dispatcher = new StreamBoxLocalDispatcher("test", 10, (Collection<UUID> ids) -> {
+            if (finishCalls.incrementAndGet() == 1) {
+                throw new IllegalStateException("database down");
+            }
+            finished.addAll(ids);
+        });
+        dispatcher.start();
+        final UUID first = UUID.randomUUID();
+        dispatcher.offer(first, () -> handled.add(first));
+        waitUntilFinishCalled(finishCalls);
+
+        final UUID second = UUID.randomUUID();
+        dispatcher.offer(second, () -> handled.add(second));
+        dispatcher.close();
+
+        // The first row is redelivered by the poller once its grace period ends.
+        assertThat(handled).containsExactly(first, second);
+        assertThat(finished).containsExactly(second);
+    }
+
+    private static void waitUntilFinishCalled(AtomicInteger finishCalls) {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (finishCalls.get() == 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(finishCalls).hasPositiveValue();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.lda.streambox.partition;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamBoxPartitionLeaseManagerTest {
+
+    private static final Duration LEASE = Duration.ofSeconds(3);
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createLeaseTables() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("""
+                CREATE TABLE streambox_lease (
+                    queue      VARCHAR(200) NOT NULL,
+                    bucket     INT          NOT NULL,
+                    owner      VARCHAR(200),
+                    expires_at TIMESTAMP    NOT NULL,
+                    PRIMARY KEY (queue, bucket)
+                )""");
+        jdbcTemplate.execute("""
+                CREATE TABLE streambox_node (
+                    queue        VARCHAR(200) NOT NULL,
+                    node_id      VARCHAR(200) NOT NULL,
+                    heartbeat_at TIMESTAMP    NOT NULL,
+                    PRIMARY KEY (queue, node_id)
+                )""");
+    }
+
+    @AfterEach
+    void dropDatabase() {
+        database.shutdown();
+    }
+
+    @Test
+    void singleNodeLeasesEveryBucket() {
+        final StreamBoxPartitionLeaseManager node = manager("node-a");
+
+        node.start();
+
+        assertThat(node.ownedBuckets()).containsExactlyInAnyOrder(0, 1, 2, 3);
+        assertThat(node.slots()).hasSize(StreamBoxPartitions.SLOTS);
+    }
+
+    @Test
+    void joiningNodeGetsItsFairShareAfterTheHandOver() throws InterruptedException {
+        final StreamBoxPartitionLeaseManager first = manager("node-a");
+        final StreamBoxPartitionLeaseManager second = manager("node-b");
+        first.start();
+        second.start();
+        assertThat(second.ownedBuckets()).isEmpty();
+
+        first.renew();
+        assertThat(first.ownedBuckets()).hasSize(2);
+        // Given-back buckets stay unavailable for a third of the lease.
+        second.renew();
+        assertThat(second.ownedBuckets()).isEmpty();
+
+        Thread.sleep(LEASE.dividedBy(3).toMillis() + 100);
+        second.renew();
+        assertThat(second.ownedBuckets()).hasSize(2);
+        final Set<Integer> all = new HashSet<>(first.ownedBuckets());
+        all.addAll(second.ownedBuckets());
+        assertThat(all).containsExactlyInAnyOrder(0, 1, 2, 3);
+        assertThat(first.slots()).doesNotContainAnyElementsOf(second.slots());
+    }
+
+    @Test
+    void stoppedNodeHandsItsBucketsOverRightAway() {
+        final StreamBoxPartitionLeaseManager first = manager("node-a");
+        final StreamBoxPartitionLeaseManager second = manager("node-b");
+        first.start();
+        second.start();
+
+        first.stop();
+        second.renew();
+
+        assertThat(first.ownedBuckets()).isEmpty();
+        assertThat(second.ownedBuckets()).containsExactlyInAnyOrder(0, 1, 2, 3);
+    }
+
+    private StreamBoxPartitionLeaseManager manager(String nodeId) {
+        return new StreamBoxPartitionLeaseManager(jdbcTemplate, "testQueue", nodeId, 4, LEASE);
+    }
+}
@@ -0,0 +1,160 @@
+package com.lda.streambox.replay;
+
+import com.lda.streambox.support.TestQueueEntity;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StreamBoxReplayerTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final StreamBoxReplayCheckpointStore checkpoints = StreamBoxReplayCheckpointStore.inMemory();
+    private final List<List<String>> calls = new CopyOnWriteArrayList<>();
+
+    @Test
+    void pagesAreAppliedInOrderAndCheckpointed() {
+        final List<TestQueueEntity> rows = rows("a", "b", "c", "d", "e", "f", "g");
+
+        final long replayed = replayer(rows, options(3, 1), calls::add).run();
+
+        assertThat(replayed).isEqualTo(7);
+        assertThat(calls).containsExactly(List.of("a", "b", "c"), List.of("d", "e", "f"), List.of("g"));
+        assertThat(checkpoints.load("test")).contains(
+                new StreamBoxReplayCheckpoint(rows.getLast().getCreatedAt(), rows.getLast().getId(), 7));
+    }
+
+    @Test
+    void failedRunResumesAfterTheLastCompletePage() {
+        final List<TestQueueEntity> rows = rows("a", "b", "c", "d", "e", "f", "g");
+        final Consumer<List<String>> failingOnE = events -> {
+            if (events.contains("e")) {
+                throw new IllegalStateException("projection down");
+            }
+            calls.add(events);
+        };
+
+        assertThatThrownBy(() -> replayer(rows, options(3, 1), failingOnE).run()).isInstanceOf(IllegalStateException.class);
+        assertThat(checkpoints.load("test").orElseThrow().replayed()).isEqualTo(3);
+
+        final long replayed = replayer(rows, options(3, 1), calls::add).run();
+
+        assertThat(replayed).isEqualTo(7);
+        assertThat(calls).containsExactly(List.of("a", "b", "c"), List.of("d", "e", "f"), List.of("g"));
+    }
+
+    @Test
+    void restartIgnoresTheCheckpoint() {
+        final List<TestQueueEntity> rows = rows("a", "b");
+        replayer(rows, options(10, 1), events -> {
+        }).run();
+
+        final StreamBoxReplayOptions restart = StreamBoxReplayOptions.builder().pageSize(10).restart(true).build();
+        final long replayed = replayer(rows, restart, calls::add).run();
+
+        assertThat(replayed).isEqualTo(2);
+        assertThat(calls).containsExactly(List.of("a", "b"));
+    }
+
+    @Test
+    void lanesKeepTheOrderOfEachKey() {
+        final List<TestQueueEntity> rows = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            rows.add(row(i, "k" + (i % 4), "k" + (i % 4) + ":" + i));
+        }
+        rows.add(row(40, null, "keyless-1"));
+        rows.add(row(41, null, "keyless-2"));
+        final Map<String, List<String>> byKey = new ConcurrentHashMap<>();
+
+        replayer(rows, options(100, 4), lane -> {
+            calls.add(lane);
+            final String key = lane.getFirst().split(":")[0];
+            assertThat(lane).allMatch(event -> event.startsWith(key));
+            byKey.put(key, lane);
+        }).run();
+
+        // One call per key plus one per keyless row, each key in created_at order.
+        assertThat(calls).hasSize(6);
+        for (int k = 0; k < 4; k++) {
+            final List<String> lane = byKey.get("k" + k);
+            assertThat(lane).hasSize(10);
+            assertThat(lane).isSortedAccordingTo(Comparator.comparingInt(event -> Integer.parseInt(event.split(":")[1])));
+        }
+    }
+
+    @Test
+    void throttleKeepsTheReplayUnderMaxEventsPerSecond() {
+        final List<TestQueueEntity> rows = rows("a", "b", "c", "d", "e", "f", "g", "h", "i", "j");
+        final StreamBoxReplayOptions throttled = StreamBoxReplayOptions.builder().pageSize(2).maxEventsPerSecond(20).build();
+
+        final long start = System.nanoTime();
+        replayer(rows, throttled, calls::add).run();
+
+        // 10 events at 20/s: the last page is due after 500ms.
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(450));
+        assertThat(calls).hasSize(5);
+    }
+
+    @Test
+    void cancelStopsAfterTheCurrentPage() {
+        final List<TestQueueEntity> rows = rows("a", "b", "c", "d");
+        final List<StreamBoxReplayer<TestQueueEntity, String>> replayer = new ArrayList<>();
+        replayer.add(replayer(rows, options(2, 1), events -> {
+            calls.add(events);
+            replayer.getFirst().cancel();
+        }));
+
+        assertThat(replayer.getFirst().run()).isEqualTo(2);
+        assertThat(calls).containsExactly(List.of("a", "b"));
+    }
+
+    private StreamBoxReplayer<TestQueueEntity, String> replayer(
+            List<TestQueueEntity> rows, StreamBoxReplayOptions options, Consumer<List<String>> applier) {
+        return new StreamBoxReplayer<>(
+                "test",
+                (after, until, limit) -> rows.stream()
+                        .filter(row -> row.getCreatedAt().isAfter(after.createdAt())
+                                || row.getCreatedAt().equals(after.createdAt()) && row.getId().compareTo(after.id()) > 0)
+                        .filter(row -> !row.getCreatedAt().isAfter(until))
+                        .limit(limit)
+                        .toList(),
+                TestQueueEntity::getPayload,
+                TestQueueEntity::getPartitionKey,
+                applier,
+                options,
+                checkpoints);
+    }
+
+    private static StreamBoxReplayOptions options(int pageSize, int parallelism) {
+        return StreamBoxReplayOptions.builder().pageSize(pageSize).parallelism(parallelism).build();
+    }
+
+    private static List<TestQueueEntity> rows(String... payloads) {
+        final List<TestQueueEntity> rows = new ArrayList<>();
+        for (int i = 0; i < payloads.length; i++) {
+            rows.add(row(i, "p-" + i, payloads[i]));
+        }
+        return Collections.unmodifiableList(rows);
+    }
+
+    private static TestQueueEntity row(int second, String partitionKey, String payload) {
+        final TestQueueEntity entity = TestQueueEntity.of("TestSnapshotEvent", partitionKey);
+        entity.setId(UUID.randomUUID());
+        entity.setCreatedAt(T0.plusSeconds(second));
+        entity.setPayload(payload);
+        return entity;
+    }
+}
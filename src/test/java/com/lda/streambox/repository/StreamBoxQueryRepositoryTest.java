@@ -0,0 +1,164 @@
+package com.lda.streambox.repository;
+
+import com.lda.streambox.StreamBoxAbsAdapter;
+import com.lda.streambox.entity.StreamBoxBaseEntity;
+import com.lda.streambox.entity.StreamBoxBaseStatusEnum;
+import com.lda.streambox.json.StreamBoxPayloadCompressor;
+import com.lda.streambox.partition.StreamBoxPartitions;
+import com.lda.streambox.support.TestQueueEntity;
+import com.lda.streambox.support.TestQueueRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the native queries on H2; each repository call commits on its own, as in the schedulers.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StreamBoxQueryRepositoryTest {
+
+    @Autowired
+    private TestQueueRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void cleanUp() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void claimMarksTheBatchInProgressAndHidesIt() {
+        final List<UUID> ids = save(3);
+        final Instant leaseUntil = Instant.now().plus(Duration.ofMinutes(5));
+
+        final List<TestQueueEntity> claimed = repository.claimNextBatch(2, Instant.now(), "node-a", leaseUntil);
+
+        assertThat(claimed).extracting(StreamBoxBaseEntity::getId).containsExactly(ids.get(0), ids.get(1));
+        final TestQueueEntity row = repository.findById(ids.get(0)).orElseThrow();
+        assertThat(row.getStatus()).isEqualTo(StreamBoxBaseStatusEnum.IN_PROGRESS);
+        assertThat(row.getClaimedBy()).isEqualTo("node-a");
+        assertThat(row.getLeaseUntil()).isNotNull();
+        assertThat(repository.claimNextBatch(10, Instant.now(), "node-b", leaseUntil))
+                .extracting(StreamBoxBaseEntity::getId).containsExactly(ids.get(2));
+    }
+
+    @Test
+    void releaseGivesUnhandledClaimsBack() {
+        final List<UUID> ids = save(2);
+        repository.claimNextBatch(2, Instant.now(), "node-a", Instant.now().plus(Duration.ofMinutes(5)));
+        repository.finishAll(List.of(ids.get(0)));
+
+        assertThat(repository.release(ids)).isEqualTo(1);
+
+        assertThat(repository.findById(ids.get(0)).orElseThrow().getStatus()).isEqualTo(StreamBoxBaseStatusEnum.FINISHED);
+        final TestQueueEntity released = repository.findById(ids.get(1)).orElseThrow();
+        assertThat(released.getStatus()).isEqualTo(StreamBoxBaseStatusEnum.PENDING);
+        assertThat(released.getClaimedBy()).isNull();
+        assertThat(repository.lockNextBatch(10, Instant.now()))
+                .extracting(StreamBoxBaseEntity::getId).containsExactly(ids.get(1));
+    }
+
+    @Test
+    void reaperOnlyReturnsExpiredClaims() {
+        final List<UUID> ids = save(2);
+        final Instant now = Instant.now();
+        repository.claim(List.of(ids.get(0)), "crashed", now.minusSeconds(1));
+        repository.claim(List.of(ids.get(1)), "alive", now.plus(Duration.ofMinutes(5)));
+
+        assertThat(repository.reapExpiredClaims(now)).isEqualTo(1);
+
+        assertThat(repository.findById(ids.get(0)).orElseThrow().getStatus()).isEqualTo(StreamBoxBaseStatusEnum.PENDING);
+        assertThat(repository.findById(ids.get(1)).orElseThrow().getStatus()).isEqualTo(StreamBoxBaseStatusEnum.IN_PROGRESS);
+    }
+
+    @Test
+    void retryLaterHidesTheRowUntilItsNextAttempt() {
+        final List<UUID> ids = save(1);
+        final Instant now = Instant.now();
+        repository.claim(ids, "node-a", now.plus(Duration.ofMinutes(5)));
+
+        repository.retryLater(ids.getFirst(), 1, now.plusSeconds(60));
+
+        final TestQueueEntity row = repository.findById(ids.getFirst()).orElseThrow();
+        assertThat(row.getStatus()).isEqualTo(StreamBoxBaseStatusEnum.PENDING);
+        assertThat(row.getAttempts()).isEqualTo(1);
+        assertThat(row.getClaimedBy()).isNull();
+        assertThat(repository.lockNextBatch(10, now)).isEmpty();
+        assertThat(repository.lockNextBatch(10, now.plusSeconds(61))).hasSize(1);
+    }
+
+    @Test
+    void slotPollingOnlyLocksRowsOfTheGivenSlots() {
+        final List<UUID> ids = save(2);
+        final int slot = StreamBoxPartitions.slotOf("key-0");
+        assertThat(StreamBoxPartitions.slotOf("key-1")).isNotEqualTo(slot);
+
+        assertThat(repository.lockNextBatchInSlots(10, Instant.now(), List.of(slot)))
+                .extracting(StreamBoxBaseEntity::getId).containsExactly(ids.get(0));
+        assertThat(repository.claimNextBatchInSlots(10, Instant.now(), List.of(slot), "node-a", Instant.now().plusSeconds(60)))
+                .extracting(StreamBoxBaseEntity::getId).containsExactly(ids.get(0));
+    }
+
+    @Test
+    void rowsWrittenBeforeTheSlotColumnGetTheSlotOfTheirKey() {
+        final List<UUID> ids = save(3);
+        repository.finishAll(List.of(ids.get(2)));
+        jdbcTemplate.update("UPDATE test_queue SET partition_no = NULL");
+        final StreamBoxAbsAdapter<TestQueueEntity> adapter = new StreamBoxAbsAdapter<>(repository) {
+            @Override
+            public void doHandle(TestQueueEntity streamBoxEntity) {
+            }
+        };
+
+        // A chunk of one row at a time, to go through the paging loop.
+        assertThat(adapter.assignMissingSlots(1)).isEqualTo(2);
+
+        assertThat(repository.findById(ids.get(0)).orElseThrow().getPartitionNo()).isEqualTo(StreamBoxPartitions.slotOf("key-0"));
+        assertThat(repository.findById(ids.get(1)).orElseThrow().getPartitionNo()).isEqualTo(StreamBoxPartitions.slotOf("key-1"));
+        assertThat(repository.findById(ids.get(2)).orElseThrow().getPartitionNo()).isNull();
+        assertThat(repository.lockNextBatchInSlots(10, Instant.now(), List.of(StreamBoxPartitions.slotOf("key-1"))))
+                .extracting(StreamBoxBaseEntity::getId).containsExactly(ids.get(1));
+    }
+
+    @Test
+    void compressedPayloadLargerThanAVarbinaryColumnIsStored() {
+        final byte[] noise = new byte[8192];
+        new Random(42).nextBytes(noise);
+        final String payload = "{\"blob\":\"" + Base64.getEncoder().encodeToString(noise) + "\"}";
+        final TestQueueEntity entity = TestQueueEntity.of("TestEvent", "key-0");
+        entity.setPayload(payload);
+        new StreamBoxPayloadCompressor(1024).compress(entity);
+        assertThat(entity.getPayloadBin().length).isGreaterThan(4096);
+
+        final UUID id = repository.save(entity).getId();
+
+        final TestQueueEntity stored = repository.findById(id).orElseThrow();
+        assertThat(StreamBoxPayloadCompressor.decompress(stored.getPayloadCodec(), stored.getPayloadBin())).isEqualTo(payload);
+    }
+
+    private List<UUID> save(int count) {
+        final Instant start = Instant.now().minusSeconds(count);
+        return IntStream.range(0, count).mapToObj(i -> {
+            final TestQueueEntity entity = TestQueueEntity.of("TestEvent", "key-" + i);
+            entity.setCreatedAt(start.plusMillis(i * 10L));
+            return repository.save(entity).getId();
+        }).toList();
+    }
+}
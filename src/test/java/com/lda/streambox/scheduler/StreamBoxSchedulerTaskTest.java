@@ -0,0 +1,340 @@
+package com.lda.streambox.scheduler;
+
+import com.lda.streambox.support.TestQueueEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.Trigger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives the task by hand: runs are recorded by a fake {@link TaskScheduler} and executed
+ * one at a time, so each planned delay can be checked.
+ */
+class StreamBoxSchedulerTaskTest {
+
+    private final ManualTaskScheduler taskScheduler = new ManualTaskScheduler();
+    private final ScriptedScheduler scheduler = new ScriptedScheduler();
+
+    @Test
+    void emptyPollsDoubleTheDelayUpToTheMaxInterval() {
+        final StreamBoxSchedulerTask task = adaptive("PT5S");
+        task.start();
+
+        assertThat(taskScheduler.runNext()).isEqualTo(Duration.ZERO);
+        assertThat(taskScheduler.runNext()).isEqualTo(Duration.ofSeconds(1));
+        assertThat(taskScheduler.runNext()).isEqualTo(Duration.ofSeconds(2));
+        assertThat(taskScheduler.runNext()).isEqualTo(Duration.ofSeconds(4));
+        assertThat(taskScheduler.runNext()).isEqualTo(Duration.ofSeconds(8));
+        assertThat(taskScheduler.nextDelay()).isEqualTo(Duration.ofSeconds(8));
+    }
+
+    @Test
+    void partialBatchResetsTheBackoff() {
+        final StreamBoxSchedulerTask task = adaptive("PT5S");
+        scheduler.results(0, 0, 0, 4);
+        task.start();
+        taskScheduler.runNext();
+        taskScheduler.runNext();
+        taskScheduler.runNext();
+        assertThat(taskScheduler.nextDelay()).isEqualTo(Duration.ofSeconds(4));
+
+        taskScheduler.runNext();
+
+        assertThat(taskScheduler.nextDelay()).isEqualTo(Duration.ofSeconds(1));
+        // The idle backoff starts over from the min interval.
+        taskScheduler.runNext();
+        assertThat(taskScheduler.nextDelay()).isEqualTo(Duration.ofSeconds(1));
+        taskScheduler.runNext();
+        assertThat(taskScheduler.nextDelay()).isEqualTo(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void fullBatchesAreDrainedBackToBackInOneRun() {
+        final StreamBoxSchedulerTask task = adaptive("PT5S");
+        scheduler.results(10, 10, 3);
+        task.start();
+
+        taskScheduler.runNext();
+
+        assertThat(scheduler.polls).isEqualTo(3);
+        assertThat(taskScheduler.nextDelay()).isEqualTo(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void spentDrainBudgetYieldsAndComesRightBack() {
+        final StreamBoxSchedulerTask task = adaptive("PT0S");
+        scheduler.results(10, 10);
+        task.start();
+
+        taskScheduler.runNext();
+
+        assertThat(scheduler.polls).isEqualTo(1);
+        assertThat(taskScheduler.nextDelay()).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    void failedPollBacksOff() {
+        final StreamBoxSchedulerTask task = adaptive("PT5S");
+        scheduler.failNextPoll = true;
+        task.start();
+
+        taskScheduler.runNext();
+
+        assertThat(taskScheduler.nextDelay()).isEqualTo(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void fixedModeWaitsTheRestOfTheRate() {
+        final StreamBoxSchedulersProperties.ScheduleConfig config = StreamBoxSchedulersProperties.ScheduleConfig.defaults();
+        config.setFixedRate("PT7S");
+        final StreamBoxSchedulerTask task = new StreamBoxSchedulerTask(scheduler, taskScheduler, config);
+        scheduler.results(100, 100);
+        task.start();
+
+        taskScheduler.runNext();
+
+        assertThat(scheduler.polls).isEqualTo(1);
+        assertThat(taskScheduler.nextDelay()).isEqualTo(Duration.ofSeconds(7));
+    }
+
+    @Test
+    void wakeUpPullsTheNextRunForward() {
+        final StreamBoxSchedulerTask task = fixedRate();
+        task.start();
+        taskScheduler.runNext();
+        assertThat(taskScheduler.nextDelay()).isEqualTo(Duration.ofSeconds(30));
+
+        task.wakeUp();
+
+        assertThat(taskScheduler.pending()).isEqualTo(1);
+        assertThat(taskScheduler.runNext()).isEqualTo(Duration.ZERO);
+        assertThat(scheduler.polls).isEqualTo(2);
+    }
+
+    @Test
+    void wakeUpsDuringARunTriggerExactlyOneRunRightAfter() {
+        final StreamBoxSchedulerTask task = fixedRate();
+        scheduler.duringPoll(() -> {
+            task.wakeUp();
+            task.wakeUp();
+        });
+        task.start();
+
+        taskScheduler.runNext();
+
+        assertThat(taskScheduler.pending()).isEqualTo(1);
+        assertThat(taskScheduler.nextDelay()).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    void replacedRunDoesNotPoll() {
+        final StreamBoxSchedulerTask task = fixedRate();
+        task.start();
+        taskScheduler.runNext();
+        final Planned replaced = taskScheduler.all().getLast();
+
+        task.wakeUp();
+        replaced.task.run();
+
+        assertThat(scheduler.polls).isEqualTo(1);
+    }
+
+    @Test
+    void stoppedTaskIgnoresWakeUps() {
+        final StreamBoxSchedulerTask task = fixedRate();
+        task.start();
+        taskScheduler.runNext();
+
+        task.stop();
+        task.wakeUp();
+
+        assertThat(taskScheduler.pending()).isZero();
+    }
+
+    @Test
+    void schedulerWakeUpReachesItsTasks() {
+        final StreamBoxSchedulerTask task = fixedRate();
+        scheduler.onWakeUp(task::wakeUp);
+        task.start();
+        taskScheduler.runNext();
+
+        scheduler.wakeUp();
+
+        assertThat(scheduler.isWakeUpEnabled()).isTrue();
+        assertThat(taskScheduler.nextDelay()).isEqualTo(Duration.ZERO);
+    }
+
+    private StreamBoxSchedulerTask fixedRate() {
+        final StreamBoxSchedulersProperties.ScheduleConfig config = StreamBoxSchedulersProperties.ScheduleConfig.defaults();
+        config.setFixedRate("PT30S");
+        return new StreamBoxSchedulerTask(scheduler, taskScheduler, config);
+    }
+
+    private StreamBoxSchedulerTask adaptive(String drainBudget) {
+        final StreamBoxSchedulersProperties.ScheduleConfig config = StreamBoxSchedulersProperties.ScheduleConfig.defaults();
+        config.setMode(StreamBoxSchedulersProperties.Mode.ADAPTIVE);
+        config.setLimit(10);
+        config.setMinInterval("PT1S");
+        config.setMaxInterval("PT8S");
+        config.setDrainBudget(drainBudget);
+        return new StreamBoxSchedulerTask(scheduler, taskScheduler, config);
+    }
+
+    /** Returns the scripted batch sizes, then empty batches. */
+    static class ScriptedScheduler extends StreamBoxScheduler<TestQueueEntity> {
+
+        private final Deque<Integer> results = new ArrayDeque<>();
+        private Runnable duringPoll = () -> {
+        };
+        private boolean failNextPoll = false;
+        private int polls = 0;
+
+        ScriptedScheduler() {
+            super(null);
+        }
+
+        void results(Integer... sizes) {
+            results.addAll(List.of(sizes));
+        }
+
+        void duringPoll(Runnable action) {
+            this.duringPoll = action;
+        }
+
+        @Override
+        public int consume(int limit) {
+            polls++;
+            duringPoll.run();
+            if (failNextPoll) {
+                failNextPoll = false;
+                throw new IllegalStateException("database down");
+            }
+            final Integer size = results.poll();
+            return size == null ? 0 : size;
+        }
+    }
+
+    /** Records planned runs; {@link #runNext()} executes the next live one. */
+    static class ManualTaskScheduler implements TaskScheduler {
+
+        private final List<Planned> planned = new ArrayList<>();
+
+        /** Runs the next planned run and returns the delay it was planned with. */
+        Duration runNext() {
+            final Planned next = next();
+            planned.remove(next);
+            next.task.run();
+            return next.delay;
+        }
+
+        Duration nextDelay() {
+            return next().delay;
+        }
+
+        int pending() {
+            return (int) planned.stream().filter(run -> !run.cancelled).count();
+        }
+
+        List<Planned> all() {
+            return planned;
+        }
+
+        private Planned next() {
+            return planned.stream().filter(run -> !run.cancelled).findFirst()
+                    .orElseThrow(() -> new AssertionError("nothing planned"));
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable task, Instant startTime) {
+            // The task computes startTime from Instant.now(): round off the few ms elapsed since.
+            final long millis = Duration.between(Instant.now(), startTime).toMillis();
+            final Planned run = new Planned(task, Duration.ofSeconds(Math.max(0, Math.round(millis / 1000.0))));
+            planned.add(run);
+            return run;
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable task, Trigger trigger) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, Instant startTime, Duration period) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, Duration period) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, Instant startTime, Duration delay) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, Duration delay) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    static class Planned implements ScheduledFuture<Object> {
+
+        final Runnable task;
+        final Duration delay;
+        boolean cancelled = false;
+
+        Planned(Runnable task, Duration delay) {
+            this.task = task;
+            this.delay = delay;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(delay);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            cancelled = true;
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return cancelled;
+        }
+
+        @Override
+        public Object get() {
+            return null;
+        }
+
+        @Override
+        public Object get(long timeout, TimeUnit unit) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.lda.streambox.scheduler;
+
+import com.lda.streambox.entity.StreamBoxBaseStatusEnum;
+import com.lda.streambox.port.StreamBoxInput;
+import com.lda.streambox.support.TestQueueEntity;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamBoxSchedulerTest {
+
+    private final RecordingInput input = new RecordingInput();
+
+    @Test
+    void keysAreHandledConcurrentlyAndInOrderWithinAKey() {
+        final List<TestQueueEntity> batch = batch(4, 5);
+        input.batch = batch;
+
+        final int locked = new StreamBoxScheduler<>(input, 4).consume(100);
+
+        assertThat(locked).isEqualTo(20);
+        assertThat(input.maxConcurrent.get()).isBetween(2, 4);
+        for (int k = 0; k < 4; k++) {
+            final String key = "p-" + k;
+            assertThat(input.handledByKey.get(key)).containsExactlyElementsOf(
+                    batch.stream().filter(row -> key.equals(row.getPartitionKey())).map(TestQueueEntity::getId).toList());
+        }
+        assertThat(input.finished).containsExactlyInAnyOrderElementsOf(batch.stream().map(TestQueueEntity::getId).toList());
+    }
+
+    @Test
+    void parallelismCapsTheKeysHandledAtOnce() {
+        input.batch = batch(8, 2);
+
+        new StreamBoxScheduler<>(input, 2).consume(100);
+
+        assertThat(input.maxConcurrent.get()).isLessThanOrEqualTo(2);
+        assertThat(input.finished).hasSize(16);
+    }
+
+    @Test
+    void failedRowHoldsBackOnlyItsOwnKey() {
+        final List<TestQueueEntity> batch = batch(3, 3);
+        input.batch = batch;
+        final TestQueueEntity poison = batch.stream().filter(row -> "p-1".equals(row.getPartitionKey())).findFirst().orElseThrow();
+        input.failing.add(poison.getId());
+
+        new StreamBoxScheduler<>(input, 3).consume(100);
+
+        assertThat(input.handledByKey.get("p-1")).isNull();
+        assertThat(input.finished).hasSize(6).doesNotContain(poison.getId());
+        assertThat(input.retried).containsExactly(poison.getId());
+    }
+
+    @Test
+    void keylessRowsAreNotOrderedAgainstEachOther() {
+        final List<TestQueueEntity> batch = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            batch.add(row(null, i));
+        }
+        input.batch = batch;
+
+        new StreamBoxScheduler<>(input, 6).consume(100);
+
+        assertThat(input.maxConcurrent.get()).isGreaterThan(1);
+        assertThat(input.finished).hasSize(6);
+    }
+
+    @Test
+    void serialSchedulerHandlesTheBatchOnThePollingThread() {
+        input.batch = batch(2, 2);
+
+        new StreamBoxScheduler<>(input).consume(100);
+
+        assertThat(input.maxConcurrent.get()).isEqualTo(1);
+        assertThat(input.threads).containsOnly(Thread.currentThread().getName());
+    }
+
+    // Rows interleaved by key, in created_at order.
+    private static List<TestQueueEntity> batch(int keys, int rowsPerKey) {
+        final List<TestQueueEntity> batch = new ArrayList<>();
+        for (int i = 0; i < keys * rowsPerKey; i++) {
+            batch.add(row("p-" + (i % keys), i));
+        }
+        return batch;
+    }
+
+    private static TestQueueEntity row(String key, int second) {
+        final TestQueueEntity entity = TestQueueEntity.of("TestChangeEvent", key);
+        entity.setId(UUID.randomUUID());
+        entity.setCreatedAt(Instant.parse("2026-01-01T00:00:00Z").plusSeconds(second));
+        return entity;
+    }
+
+    static class RecordingInput implements StreamBoxInput<TestQueueEntity> {
+
+        List<TestQueueEntity> batch = List.of();
+        final Set<UUID> failing = ConcurrentHashMap.newKeySet();
+        final Map<String, List<UUID>> handledByKey = new ConcurrentHashMap<>();
+        final Set<String> threads = ConcurrentHashMap.newKeySet();
+        final List<UUID> finished = new CopyOnWriteArrayList<>();
+        final List<UUID> retried = new CopyOnWriteArrayList<>();
+        final AtomicInteger concurrent = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+
+        @Override
+        public List<TestQueueEntity> lockNextBatch(int limit) {
+            return batch;
+        }
+
+        @Override
+        public void doHandle(TestQueueEntity entity) {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            threads.add(Thread.currentThread().getName());
+            try {
+                Thread.sleep(20);
+                if (failing.contains(entity.getId())) {
+                    throw new IllegalStateException("handler failed");
+                }
+                if (entity.getPartitionKey() != null) {
+                    handledByKey.computeIfAbsent(entity.getPartitionKey(), key -> new CopyOnWriteArrayList<>()).add(entity.getId());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrent.decrementAndGet();
+            }
+        }
+
+        @Override
+        public String orderingKey(TestQueueEntity entity) {
+            return entity.getPartitionKey();
+        }
+
+        @Override
+        public void finishAll(Collection<UUID> ids) {
+            finished.addAll(ids);
+        }
+
+        @Override
+        public void retryLater(TestQueueEntity entity, int attempts, Instant nextAttemptAt) {
+            retried.add(entity.getId());
+        }
+
+        @Override
+        public void markDead(Collection<UUID> ids) {
+        }
+
+        @Override
+        public void finish(TestQueueEntity entity) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int purgeExpired(StreamBoxBaseStatusEnum status, Instant olderThan, int chunkSize) {
+            return 0;
+        }
+
+        @Override
+        public long countPending() {
+            return 0;
+        }
+
+        @Override
+        public Instant oldestPendingCreatedAt() {
+            return null;
+        }
+    }
+}
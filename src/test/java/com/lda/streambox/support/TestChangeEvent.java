@@ -0,0 +1,13 @@
+package com.lda.streambox.support;
+
+import com.lda.streambox.anotation.StreamBoxEventType;
+import com.lda.streambox.model.StreamBoxEvent;
+
+@StreamBoxEventType("TestChangeEvent")
+public record TestChangeEvent(String key, int delta) implements StreamBoxEvent {
+
+    @Override
+    public String partitionKey() {
+        return key;
+    }
+}
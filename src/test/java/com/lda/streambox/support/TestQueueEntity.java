@@ -0,0 +1,18 @@
+package com.lda.streambox.support;
+
+import com.lda.streambox.entity.StreamBoxBasePayloadEntity;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+
+@Entity(name = "test_queue")
+@Table(name = "test_queue")
+public class TestQueueEntity extends StreamBoxBasePayloadEntity {
+
+    public static TestQueueEntity of(String type, String partitionKey) {
+        final TestQueueEntity entity = new TestQueueEntity();
+        entity.setType(type);
+        entity.setPartitionKey(partitionKey);
+        entity.setPayload("{}");
+        return entity;
+    }
+}
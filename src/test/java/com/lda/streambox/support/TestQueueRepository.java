@@ -0,0 +1,6 @@
+package com.lda.streambox.support;
+
+import com.lda.streambox.repository.StreamBoxRepository;
+
+public interface TestQueueRepository extends StreamBoxRepository<TestQueueEntity> {
+}
@@ -0,0 +1,13 @@
+package com.lda.streambox.support;
+
+import com.lda.streambox.anotation.StreamBoxEventType;
+import com.lda.streambox.model.StreamBoxEvent;
+
+@StreamBoxEventType(value = "TestSnapshotEvent", collapsible = true)
+public record TestSnapshotEvent(String key, int quantity) implements StreamBoxEvent {
+
+    @Override
+    public String partitionKey() {
+        return key;
+    }
+}